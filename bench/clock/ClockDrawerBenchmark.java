@@ -0,0 +1,91 @@
+package clock;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of drawing one frame of each clock into a headless image, 
+ * for every view, size, skin and antialiasing setting.
+ * Run with the GC profiler (ant bench) to also report the bytes allocated per frame
+ * @author Arik Dicks
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ClockDrawerBenchmark {
+    private static final int FRAMES = 3600; // An hour of ticks, so that every hand position is drawn
+
+    @Param({"analog", "digital", "seven_segment"})
+    public String view;
+
+    @Param({"200", "500", "1000"})
+    public int size;
+
+    @Param({"Basic", "Inverted", "Night Mode", "Ocean", "HULK", "Captain America", "Iron Man", "Thor", "Barbie"})
+    public String skin;
+
+    @Param({"true", "false"})
+    public boolean antialiasing;
+
+    private ClockDrawer drawer;
+    private BufferedImage image;
+    private Graphics2D g2;
+    private TimeSnapshot[] times;
+    private int frame;
+
+    /**
+     * Creates the drawer and the image it draws on, and decodes the times of every frame up front
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Skin clockSkin = new SkinList().getSkin(skin);
+        int clockSize = Math.max(size/100, 1);
+        drawer = ClockView.forName(view).createDrawer(clockSkin, size, size, clockSize);
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
+                antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        
+        GregorianCalendar calendar = new GregorianCalendar(2024, 0, 15, 10, 0, 0);
+        long start = calendar.getTimeInMillis();
+        times = new TimeSnapshot[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            times[i] = TimeSnapshot.of(start + i*1000L, calendar);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    /**
+     * Draws the next second of the clock
+     * @return the image that was drawn on, so the work cannot be eliminated
+     */
+    @Benchmark
+    public BufferedImage drawFrame() {
+        drawer.draw(g2, times[frame]);
+        frame = (frame + 1)%FRAMES;
+        return image;
+    }
+}
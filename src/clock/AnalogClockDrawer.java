@@ -1,40 +1,54 @@
 package clock;
 
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Responsible for drawing an analog clock on a Graphics2D object
+ * Responsible for drawing an analog clock on a Graphics2D object.
+ * The clock is composited from cached layers, each of which is only re-rendered when its own inputs change:
+ * the dial (rasterized once per size and shared through the DialCache, and recolored for each skin by swapping its palette),
+ * the date (daily), the hour and minute hands (each minute),
+ * and the live second hand
  * @author Arik Dicks
  */
 public class AnalogClockDrawer implements ClockDrawer {
-    private static final Point[] CIRCLE_POINTS = new Point[60];
-    private static final Point[] TICK_POINTS = new Point[60];
-    private static final double THETA_INCREMENT = ((2*Math.PI)/60);
-    private static final double INITIAL_THETA = Math.PI/2;
-    private static final double MINUTE_TICK_RATIO = 19.0/20;
-    private static final double HOUR_TICK_RATIO = 18.0/20; 
-    private static final double HOUR_HAND_LENGTH_RATIO = 0.5;
-    private static final double MINUTE_HAND_LENGTH_RATIO = 0.7;
-    private static final double SECOND_HAND_LENGTH_RATIO = 0.8;
-    private static int WIDTH;
-    private static int HEIGHT;
-    private static int CLOCK_SIZE;
-    private static double hBorder;
-    private static double vBorder;
-    private static Point center;
-    private static double radius;
-    private static double centerX;
-    private static double centerY;
+    private final AnalogClockGeometry geometry;
+    private final int WIDTH;
+    private final int HEIGHT;
+    private final double radius;
+    private final double centerX;
+    private final double centerY;
+    private final Ellipse2D.Double clockBody;
+    private final Line2D.Double[] tickLines = new Line2D.Double[60];
+    private final Font numeralFont;
+    private final Font dateFont;
+    private final BasicStroke dateStroke;
+    private final BasicStroke bodyStroke;
+    private final BasicStroke tickStroke;
+    private final int numeralOffsetY; // The distance from the center of a numeral to its baseline
     private Skin skin;
-
+    private BufferedImage dialLayer; // The shared indexed dial, converted once per skin into an image compatible with the target
+    private BufferedImage dateLayer;
+    private BufferedImage handLayer;
+    private int dateLayerKey = -1;  // The day the date layer was rendered for
+    private int handLayerKey = -1;  // The minute (or second, when sweeping) of the half day the hand layer was rendered for
+    private final Rectangle dateLayerBounds = new Rectangle(); // The region of the date layer that has been drawn on
+    private final Rectangle handLayerBounds = new Rectangle(); // The region of the hand layer that has been drawn on
+    private final FixedPath.Cursor handCursor = new FixedPath.Cursor(); // Fills the hands without allocating
+    private boolean sweep;
+    private Object layerAntialiasing; // The antialiasing hint the layers were rendered with
+    private boolean dialLayerValid;   // Whether the dial layer holds the dial in the current skin
 
     /**
      * Constructs a drawer that can draw an analog clock
@@ -44,31 +58,150 @@ public class AnalogClockDrawer implements ClockDrawer {
      * @param clockSize The general of the clock
      */
     public AnalogClockDrawer(Skin skin, int width, int height, int clockSize) {
+        this(skin, AnalogClockGeometry.forSize(width, height, clockSize));
+    }
+
+    /**
+     * Constructs a drawer that can draw an analog clock with the given geometry
+     * @param skin The skin of the clock
+     * @param geometry The geometry of the clock, which may be shared with other drawers
+     */
+    public AnalogClockDrawer(Skin skin, AnalogClockGeometry geometry) {
         this.skin = skin;
-        WIDTH = width;
-        HEIGHT = height;
-        CLOCK_SIZE = clockSize;
-        hBorder = WIDTH/20.0;   // The width of the horizontal border around the clock
-        vBorder = HEIGHT/20.0;   // The width of the vertical border around the clock     
-        radius = (WIDTH-2*hBorder)/2.0; // The radius of the clock
-        center = new Point((int)(WIDTH/2.0), (int)(HEIGHT/2.0)); // The center point of the clock
-        centerX = center.getX(); // The x value of the center of the clock
-        centerY = center.getY(); // The y value of the center of the clock
-        setPoints();
+        this.geometry = geometry;
+        WIDTH = geometry.getWidth();
+        HEIGHT = geometry.getHeight();
+        radius = geometry.getRadius();
+        centerX = geometry.getCenterX();
+        centerY = geometry.getCenterY();
+        
+        // Build the shapes, strokes and fonts once, so that drawing allocates nothing
+        clockBody = new Ellipse2D.Double(centerX-radius, centerY-radius, radius*2, radius*2);
+        for(int i = 0; i < tickLines.length; i++) {
+            Point circlePoint = geometry.getCirclePoint(i);
+            Point tickPoint = geometry.getTickPoint(i);
+            tickLines[i] = new Line2D.Double(circlePoint.getX(), circlePoint.getY(), tickPoint.getX(), tickPoint.getY());
+        }
+        double scale = geometry.getScale();
+        numeralFont = new Font("Times New Roman", Font.BOLD, Math.max((int)Math.round(scale*6), 1));
+        dateFont = new Font("Times New Roman", Font.BOLD, Math.max((int)Math.round(scale*4), 1));
+        dateStroke = new BasicStroke((float)scale);
+        bodyStroke = new BasicStroke((float)(scale*2));
+        tickStroke = new BasicStroke((float)(scale*0.4));
+        numeralOffsetY = (int)Math.round(scale*1.2);
+    }
+
+    /**
+     * Gets the geometry of this clock
+     * @return the geometry of this clock
+     */
+    public AnalogClockGeometry getGeometry() {
+        return geometry;
     }
 
     /**
      * Draws an analog clock at the given time
      * @param g2 The Graphics2D object to be drawn on
-     * @param calendar The given time
+     * @param time The given time
      */
     @Override
-    public void draw(Graphics2D g2, GregorianCalendar calendar) {
-        drawBody(g2);
-        drawDate(g2, calendar);
-        drawHand(g2, HOUR_HAND_LENGTH_RATIO, calendar.get(Calendar.HOUR)%12, 'h');
-        drawHand(g2, MINUTE_HAND_LENGTH_RATIO, calendar.get(Calendar.MINUTE), 'm');
-        drawHand(g2, SECOND_HAND_LENGTH_RATIO, calendar.get(Calendar.SECOND), 's');
+    public void draw(Graphics2D g2, TimeSnapshot time) {
+        long phaseStart = ClockMetrics.startPhase();
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        if (!dialLayerValid || antialiasing != layerAntialiasing) {
+            invalidateLayers();
+            layerAntialiasing = antialiasing;
+            if (dialLayer == null) {
+                dialLayer = createLayer(g2, Transparency.OPAQUE);
+                dateLayer = createLayer(g2, Transparency.TRANSLUCENT);
+                handLayer = createLayer(g2, Transparency.TRANSLUCENT);
+            }
+            // The pixels of the dial are shared with every other clock of the same size, and only the palette is this skin's
+            DialCache dials = DialCache.getShared();
+            IndexedDial dial = dials.get(geometry, antialiasing);
+            if (dial == null) {
+                BufferedImage probe = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+                Graphics2D layer = beginLayer(g2, probe);
+                // Subpixel text would spread the roles across the channels, so the numerals are captured in grayscale
+                if (layer.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING) != RenderingHints.VALUE_TEXT_ANTIALIAS_OFF)
+                    layer.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT);
+                drawBody(layer, IndexedDial.createProbeSkin());
+                layer.dispose();
+                dial = new IndexedDial(probe);
+                dials.put(geometry, antialiasing, dial);
+            }
+            // An indexed image is slow to blit, so it is only the source of the dial layer, which is blitted every frame
+            Graphics2D layer = dialLayer.createGraphics();
+            layer.setComposite(AlphaComposite.Src);
+            layer.drawImage(dial.createImage(skin), 0, 0, null);
+            layer.dispose();
+            dialLayerValid = true;
+        }
+        g2.drawImage(dialLayer, 0, 0, null);
+        phaseStart = ClockMetrics.endPhase(RenderPhase.BODY, phaseStart);
+        
+        // DATE, re-rendered when the day changes
+        int dateKey = time.getDayKey();
+        if (dateKey != dateLayerKey) {
+            Graphics2D layer = beginLayer(g2, dateLayer);
+            drawDate(layer, time);
+            layer.dispose();
+            dateLayerKey = dateKey;
+        }
+        // Only the drawn regions of the translucent layers are blended, which is far cheaper than the whole area
+        drawLayerRegion(g2, dateLayer, dateLayerBounds);
+        phaseStart = ClockMetrics.endPhase(RenderPhase.DATE, phaseStart);
+        
+        // HOUR AND MINUTE HANDS, re-rendered when the minute changes (or the second, when sweeping)
+        int handKey = getHandLayerKey(time);
+        if (handKey != handLayerKey) {
+            Graphics2D layer = beginLayer(g2, handLayer);
+            drawHand(layer, getHourPosition(time), 'h');
+            drawHand(layer, getMinutePosition(time), 'm');
+            layer.dispose();
+            handLayerKey = handKey;
+            handLayerBounds.setBounds(getHandBounds(getHourPosition(time), 'h'));
+            handLayerBounds.add(getHandBounds(getMinutePosition(time), 'm'));
+        }
+        drawLayerRegion(g2, handLayer, handLayerBounds);
+        drawHand(g2, getSecondPosition(time), 's');
+        ClockMetrics.endPhase(RenderPhase.HANDS, phaseStart);
+    }
+    
+    /**
+     * Gets the bounds of the hands that moved between two times, or the whole clock if the date changed
+     * @param oldTime The time of the previous frame
+     * @param newTime The time of the next frame
+     * @return the damaged regions
+     */
+    @Override
+    public List<Rectangle> getDamagedRegions(TimeSnapshot oldTime, TimeSnapshot newTime) {
+        List<Rectangle> regions = new ArrayList<>();
+        if (oldTime == null || oldTime.getDayKey() != newTime.getDayKey()) {
+            regions.add(new Rectangle(0, 0, WIDTH, HEIGHT));
+            return regions;
+        }
+        if (getHandLayerKey(oldTime) != getHandLayerKey(newTime)) {
+            regions.add(getHandBounds(getHourPosition(oldTime), 'h'));
+            regions.add(getHandBounds(getHourPosition(newTime), 'h'));
+            regions.add(getHandBounds(getMinutePosition(oldTime), 'm'));
+            regions.add(getHandBounds(getMinutePosition(newTime), 'm'));
+        }
+        regions.add(getHandBounds(getSecondPosition(oldTime), 's'));
+        regions.add(getHandBounds(getSecondPosition(newTime), 's'));
+        return regions;
+    }
+    
+    /**
+     * Sets whether the hands sweep continuously, or tick from second to second
+     * @param sweep True for the hands to sweep
+     */
+    @Override
+    public void setSweep(boolean sweep) {
+        if (this.sweep != sweep) {
+            this.sweep = sweep;
+            handLayerKey = -1;
+        }
     }
     
    /**
@@ -78,166 +211,199 @@ public class AnalogClockDrawer implements ClockDrawer {
     @Override
     public void setSkin(Skin newSkin) {
         skin = newSkin;
+        invalidateLayers();
+    }
+    
+    /**
+     * Discards all cached layers, so that each is re-rendered on the next draw
+     */
+    private void invalidateLayers() {
+        dialLayerValid = false;
+        dateLayerKey = -1;
+        handLayerKey = -1;
+    }
+    
+    /**
+     * Draws a region of a layer at the same position on the given Graphics2D object
+     * @param g2 The Graphics2D object to be drawn on
+     * @param layer The layer to be drawn
+     * @param region The region of the layer to be drawn
+     */
+    private void drawLayerRegion(Graphics2D g2, BufferedImage layer, Rectangle region) {
+        int x1 = Math.max(region.x, 0);
+        int y1 = Math.max(region.y, 0);
+        int x2 = Math.min(region.x + region.width, WIDTH);
+        int y2 = Math.min(region.y + region.height, HEIGHT);
+        if (x1 < x2 && y1 < y2)
+            g2.drawImage(layer, x1, y1, x2, y2, x1, y1, x2, y2, null);
+    }
+    
+    /**
+     * Creates an image for a layer that is compatible with the given Graphics2D object
+     * @param g2 The Graphics2D object the layer will be drawn on
+     * @param transparency The transparency of the layer
+     * @return the new layer
+     */
+    private BufferedImage createLayer(Graphics2D g2, int transparency) {
+        return g2.getDeviceConfiguration().createCompatibleImage(WIDTH, HEIGHT, transparency);
+    }
+    
+    /**
+     * Clears a layer and prepares it for drawing with the same rendering hints as the target
+     * @param g2 The Graphics2D object the layer will be drawn on
+     * @param layer The layer to be re-rendered
+     * @return a Graphics2D object that draws on the layer, which must be disposed by the caller
+     */
+    private Graphics2D beginLayer(Graphics2D g2, BufferedImage layer) {
+        Graphics2D layerGraphics = layer.createGraphics();
+        layerGraphics.setComposite(AlphaComposite.Clear);
+        layerGraphics.fillRect(0, 0, WIDTH, HEIGHT);
+        layerGraphics.setComposite(AlphaComposite.SrcOver);
+        layerGraphics.setRenderingHints(g2.getRenderingHints());
+        return layerGraphics;
     }
     
     /**
      * Draws the body of the analog clock
      * @param g2 The Graphics2D object to be drawn on
+     * @param skin The skin of the body, of which only the background, primary fill, edge and number colors are drawn
      */
-    private void drawBody(Graphics2D g2) {
+    private void drawBody(Graphics2D g2, Skin skin) {
         // BACKGROUND
         g2.setColor(skin.BACKGROUND_COLOR);
         g2.fillRect(0, 0, WIDTH, HEIGHT);
         
         // BODY
 
-        Ellipse2D.Double clockBody = new Ellipse2D.Double(hBorder, vBorder, radius*2, radius*2);
-        g2.setStroke(new BasicStroke(10));
+        g2.setStroke(bodyStroke);
         g2.setColor(skin.EDGE_COLOR);
         g2.draw(clockBody);
         g2.setColor(skin.PRIMARY_FILL_COLOR);
         g2.fill(clockBody);
         
         // TICK MARKS
-        g2.setStroke(new BasicStroke(2));
+        g2.setStroke(tickStroke);
         g2.setColor(skin.EDGE_COLOR);
         
-        // Access the tick points defined by the constructor, and draw each tick mark
-        for(int i = 0; i < TICK_POINTS.length; i++) {
-            Line2D.Double line = new Line2D.Double(
-                    CIRCLE_POINTS[i].getX(), 
-                    CIRCLE_POINTS[i].getY(), 
-                    TICK_POINTS[i].getX(), 
-                    TICK_POINTS[i].getY()
-            );
-            g2.draw(line);
+        // Draw each tick mark, between the tick points defined by the constructor
+        for(int i = 0; i < tickLines.length; i++) {
+            g2.draw(tickLines[i]);
         }
         // HOUR NUMBERS
-        String[] numeralStrings = {"XII", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X", "XI"};
-        Font font = new Font("Times New Roman", Font.BOLD, CLOCK_SIZE*6);
         g2.setColor(skin.NUMBER_COLOR);
-        g2.setFont(font);
         
         // For each numeral, calculate the drawing point that causes the numeral to be centered 
         // on the line between it's tick and the center of the circle, at a distance from the center,
-        // which is proportional to the numeralPositionRatio
-        FontMetrics metrics = g2.getFontMetrics(font);
-        double numeralRadiusRatio = 0.8; // ratio of the radius to the numeral, to the radius of the circle
-        for(int i = 0; i < numeralStrings.length; i++) {
-            int numeralCenterX = (int)Math.round(Math.cos(INITIAL_THETA-(i*THETA_INCREMENT*5))*radius*(numeralRadiusRatio)+centerX);
-            int numeralCenterY = (int)Math.round(-1*Math.sin(INITIAL_THETA-(i*THETA_INCREMENT*5))*radius*(numeralRadiusRatio)+centerY);
-            int numeralWidth = metrics.stringWidth(numeralStrings[i]);
-            int newX = numeralCenterX-(numeralWidth/2);
-            g2.drawString(numeralStrings[i], newX, numeralCenterY+6);
+        // which is proportional to the numeralPositionRatio. The numerals are laid out and measured once, by the TextLayoutCache
+        TextLayoutCache texts = TextLayoutCache.getShared();
+        for(int i = 0; i < ClockText.NUMERAL_COUNT; i++) {
+            int numeralCenterX = (int)Math.round(geometry.getX(i*5, AnalogClockGeometry.NUMERAL_RADIUS_RATIO));
+            int numeralCenterY = (int)Math.round(geometry.getY(i*5, AnalogClockGeometry.NUMERAL_RADIUS_RATIO));
+            TextLayoutCache.Text numeral = texts.get(g2, ClockText.getNumeral(i), numeralFont);
+            int newX = numeralCenterX-(numeral.getWidth()/2);
+            numeral.draw(g2, newX, numeralCenterY+numeralOffsetY);
         }
     }
     
     /**
      * Draws the date of the analog clock
      * @param g2 The Graphics2D object to be drawn on
-     * @param calendar The given time
-     */
-    private void drawDate(Graphics2D g2, GregorianCalendar calendar) {
-        String[] daysOfWeek = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
-        String[] monthsInYear = {"January", "February", "March", "April", "May", "June", "July", "August", "September", "October", "November", "December"};
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH);
-        int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
-        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-        String date = daysOfWeek[dayOfWeek-1] + " " + monthsInYear[month] + " " + dayOfMonth + ", " + year;
-        Font font = new Font("Times New Roman", Font.BOLD, CLOCK_SIZE*4);
-        g2.setFont(font);
-        
-        FontMetrics metrics = g2.getFontMetrics(font);
-        int dateWidth = metrics.stringWidth(date);
-        int dateHeight = metrics.getHeight();
-        int dateX = (int)centerX-(dateWidth/2);
+     * @param time The given time
+     */
+    private void drawDate(Graphics2D g2, TimeSnapshot time) {
+        TextLayoutCache.Text dateText = TextLayoutCache.getShared().get(g2, ClockText.formatDate(time), dateFont);
+        int dateX = (int)centerX-(dateText.getWidth()/2);
         int dateY = (int)(centerY*1.20);
-        g2.setStroke(new BasicStroke(CLOCK_SIZE));
+        g2.setStroke(dateStroke);
         g2.setColor(skin.DATE_COLOR);
-        g2.drawString(date, dateX, dateY);
+        dateText.draw(g2, dateX, dateY);
+        
+        // Remember where the date was drawn, with a pixel of slack for antialiasing
+        dateLayerBounds.setBounds(dateText.getPixelBounds());
+        dateLayerBounds.translate(dateX, dateY);
+        dateLayerBounds.grow(1, 1);
     }
     
     /**
-     * Draws a hand of the Analog Clock at the given time value
+     * Draws a hand of the Analog Clock at the given time value, by filling its shape from the table of hands
      * @param g2 The Graphics2D object to be drawn on
-     * @param handLengthRatio The ratio of the length of the hand to the radius of the clock
-     * @param timeValue The value of the time denomination being drawn (e.g. 5, for the 5th hour)
+     * @param position The position of the hand around the clock, in tick marks (e.g. 25.5, for half past the 5th hour)
      * @param timeUnit The char representation of the time unit of the hand to be drawn (e.g. 's' for the second hand)
      */
-    private void drawHand(Graphics2D g2, double handLengthRatio, int timeValue, char timeUnit) {
-        int index;
-        if (timeUnit == 'h') // The index of the circle point corresponding to each hour, is 5 times the hour
-            index = (timeValue*5)%60;   // Modulus 60 handles the 12th hour, which should access the point at index 0
-        else 
-            index = timeValue;
-        // Get the slope of the hand
-        double run = CIRCLE_POINTS[index].getX()-centerX;
-        double rise = CIRCLE_POINTS[index].getY()-centerY;
-        
-        // Calculate the point at the tip of the hand
-        int outerX = (int)Math.round(centerX+(run*handLengthRatio));
-        int outerY = (int)Math.round(centerY+(rise*handLengthRatio));
-        
-        // If it's the second hand, set the color and stroke then draw it
-        g2.setColor(skin.SECONDARY_FILL_COLOR);
-        g2.setStroke(new BasicStroke(4));
-        if (timeUnit == 's') {
-            g2.drawLine(outerX, outerY, (int)center.getX(), (int)center.getY());
-            return;
-        }
-        
-        // For the minute and hour hands, draw the arrow at the end of the hand
-        double arrowLengthRatio = 0.1;
-        double arrowWidthRatio = 0.05;
-        
-        // Get the point at the center of the base of the arrow
-        int arrowX1 = (int)Math.round(outerX-(run*arrowLengthRatio));
-        int arrowY1 = (int)Math.round(outerY-(rise*arrowLengthRatio));
-        double inverseRun = rise*-1;
-        double inverseRise = run;
-        
-        // Get the points at the left and right of the base of the arrow
-        int arrowX2 = (int)Math.round(arrowX1+(inverseRun*arrowWidthRatio/2));
-        int arrowY2 = (int)Math.round(arrowY1+(inverseRise*arrowWidthRatio/2));
-        int arrowX3 = (int)Math.round(arrowX1-(inverseRun*arrowWidthRatio/2));
-        int arrowY3 = (int)Math.round(arrowY1-(inverseRise*arrowWidthRatio/2));
-        
-        // Draw the hand (from the center of the clock to the base of the arrow)
-        g2.setColor(skin.TERTIARY_FILL_COLOR);
-        g2.setStroke(new BasicStroke(4, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
-        g2.drawLine(arrowX1, arrowY1, (int)center.getX(), (int)center.getY());
+    private void drawHand(Graphics2D g2, double position, char timeUnit) {
+        g2.setColor((timeUnit == 's') ? skin.SECONDARY_FILL_COLOR : skin.TERTIARY_FILL_COLOR);
+        handCursor.fill(g2, getHandShape(position, timeUnit));
+    }
+    
+    /**
+     * Gets the bounds of a hand of the Analog Clock at the given time value
+     * @param position The position of the hand around the clock, in tick marks
+     * @param timeUnit The char representation of the time unit of the hand
+     * @return the bounds of the hand
+     */
+    private Rectangle getHandBounds(double position, char timeUnit) {
+        Rectangle bounds = getHandShape(position, timeUnit).getBounds();
         
-        // Draw the arrow
-        g2.drawLine(arrowX1, arrowY1, arrowX2, arrowY2);
-        g2.drawLine(arrowX1, arrowY1, arrowX3, arrowY3);
-        g2.drawLine(outerX, outerY, arrowX2, arrowY2);
-        g2.drawLine(outerX, outerY, arrowX3, arrowY3);
+        // Grow by a pixel for antialiasing
+        bounds.grow(1, 1);
+        return bounds;
     }
     
     /**
-     * Initializes all points within the clock that will be used for drawing the body and ticks
+     * Gets the shape of a hand of the Analog Clock at the given time value
+     * @param position The position of the hand around the clock, in tick marks
+     * @param timeUnit The char representation of the time unit of the hand ('h', 'm' or 's')
+     * @return the shape of the hand
      */
-    private void setPoints() {
-        // Walk around the circle by the radian increment between each tick mark (2PI/60),
-        // and apply trig definitons to get all 60 points on the circle
-        for(int i = 0; i < CIRCLE_POINTS.length; i++) {
-            int newX = (int)Math.round(Math.cos(INITIAL_THETA-(i*THETA_INCREMENT))*radius+center.getX());
-            int newY = (int)Math.round(-1*Math.sin(INITIAL_THETA-(i*THETA_INCREMENT))*radius+center.getY());
-            CIRCLE_POINTS[i] = new Point(newX, newY);
-        }
-        // Do the same as for the circle points, but with a smaller radius
-        for(int i = 0; i < TICK_POINTS.length; i++) {
-            int newX;
-            int newY;
-            if ((i)%5==0) { // For the hour tick marks, use a shorter radius, to get a longer tick mark
-                newX = (int)Math.round(Math.cos(INITIAL_THETA-(i*THETA_INCREMENT))*radius*(HOUR_TICK_RATIO)+centerX);
-                newY = (int)Math.round(-1*Math.sin(INITIAL_THETA-(i*THETA_INCREMENT))*radius*(HOUR_TICK_RATIO)+centerY);
-            } else { // For the minute tick marks, user a longer radius, to get a shorter tick mark
-                newX = (int)Math.round(Math.cos(INITIAL_THETA-(i*THETA_INCREMENT))*radius*(MINUTE_TICK_RATIO)+centerX);
-                newY = (int)Math.round(-1*Math.sin(INITIAL_THETA-(i*THETA_INCREMENT))*radius*(MINUTE_TICK_RATIO)+centerY);
-            }
-            TICK_POINTS[i] = new Point(newX, newY);
+    private FixedPath getHandShape(double position, char timeUnit) {
+        AnalogHandTable hands = geometry.getHands();
+        switch (timeUnit) {
+            case 'h':
+                return hands.getHourHand(position);
+            case 'm':
+                return hands.getMinuteHand(position);
+            default:
+                return hands.getSecondHand(position);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Gets the position of the hour hand, which advances with the minutes
+     * @param time The given time
+     * @return the position of the hour hand, in tick marks
+     */
+    private double getHourPosition(TimeSnapshot time) {
+        // Each hour is 5 tick marks, and the minutes move the hand through those 5 tick marks
+        return time.getHour()*5 + getMinutePosition(time)/12;
+    }
+    
+    /**
+     * Gets the position of the minute hand, which advances with the seconds when sweeping
+     * @param time The given time
+     * @return the position of the minute hand, in tick marks
+     */
+    private double getMinutePosition(TimeSnapshot time) {
+        int minute = time.getMinute();
+        return sweep ? minute + time.getSecond()/60.0 : minute;
+    }
+    
+    /**
+     * Gets the position of the second hand, which advances with the milliseconds when sweeping
+     * @param time The given time
+     * @return the position of the second hand, in tick marks
+     */
+    private double getSecondPosition(TimeSnapshot time) {
+        int second = time.getSecond();
+        return sweep ? second + time.getMillisecond()/1000.0 : second;
+    }
+    
+    /**
+     * Gets the key of the hand layer at the given time, which changes whenever the hour and minute hands move
+     * @param time The given time
+     * @return the key of the hand layer
+     */
+    private int getHandLayerKey(TimeSnapshot time) {
+        int minuteOfHalfDay = time.getHour()*60 + time.getMinute();
+        return sweep ? minuteOfHalfDay*60 + time.getSecond() : minuteOfHalfDay;
+    }
+}
@@ -0,0 +1,222 @@
+package clock;
+
+import java.awt.Point;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The immutable geometry of an analog clock of a given size: its borders, center, radius,
+ * and the points on the circle that the tick marks and hands are drawn between.
+ * A geometry can be shared by any number of drawers, on any number of threads, along with the table of its hands,
+ * and the geometries of the most recently used sizes are kept so that clocks of the same size share them
+ * @author Arik Dicks
+ */
+public final class AnalogClockGeometry {
+    /**
+     * The ratio of the distance of the centers of the numerals from the center of the clock, to the radius of the clock
+     */
+    public static final double NUMERAL_RADIUS_RATIO = 0.8;
+    private static final double THETA_INCREMENT = ((2*Math.PI)/60);
+    private static final double INITIAL_THETA = Math.PI/2;
+    private static final double MINUTE_TICK_RATIO = 19.0/20;
+    private static final double HOUR_TICK_RATIO = 18.0/20;
+    private static final int MAX_SHARED_GEOMETRIES = 8;
+    private static final LinkedHashMap<String, AnalogClockGeometry> SHARED = new LinkedHashMap<String, AnalogClockGeometry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AnalogClockGeometry> eldest) {
+            return size() > MAX_SHARED_GEOMETRIES;
+        }
+    };
+    private final int width;
+    private final int height;
+    private final int clockSize;
+    private final double scale;
+    private final double hBorder;
+    private final double vBorder;
+    private final double radius;
+    private final double centerX;
+    private final double centerY;
+    private final int[] circleX = new int[60];
+    private final int[] circleY = new int[60];
+    private final int[] tickX = new int[60];
+    private final int[] tickY = new int[60];
+    private final AnalogHandTable hands;
+
+    /**
+     * Constructs the geometry of an analog clock
+     * @param width The width of the clock
+     * @param height The height of the clock
+     * @param clockSize The general size of the clock
+     */
+    public AnalogClockGeometry(int width, int height, int clockSize) {
+        this.width = width;
+        this.height = height;
+        this.clockSize = clockSize;
+        scale = Math.min(width, height)/100.0; // Fonts and strokes are sized for a 100 pixel clock, times the scale
+        hBorder = width/20.0;   // The width of the horizontal border around the clock
+        vBorder = height/20.0;   // The width of the vertical border around the clock
+        radius = Math.min(width-2*hBorder, height-2*vBorder)/2.0; // The radius of the clock, which fits the shorter side
+        centerX = (int)(width/2.0); // The x value of the center of the clock
+        centerY = (int)(height/2.0); // The y value of the center of the clock
+
+        // Walk around the circle by the radian increment between each tick mark (2PI/60),
+        // and apply trig definitons to get all 60 points on the circle
+        for(int i = 0; i < circleX.length; i++) {
+            circleX[i] = (int)Math.round(getX(i, 1));
+            circleY[i] = (int)Math.round(getY(i, 1));
+        }
+        // Do the same as for the circle points, but with a smaller radius. For the hour tick marks,
+        // use a shorter radius, to get a longer tick mark, and for the minute tick marks a longer radius
+        for(int i = 0; i < tickX.length; i++) {
+            double tickRatio = (i%5 == 0) ? HOUR_TICK_RATIO : MINUTE_TICK_RATIO;
+            tickX[i] = (int)Math.round(getX(i, tickRatio));
+            tickY[i] = (int)Math.round(getY(i, tickRatio));
+        }
+        hands = new AnalogHandTable(this);
+    }
+
+    /**
+     * Gets the shared geometry of an analog clock of the given size, constructing it if no recent clock has had that size
+     * @param width The width of the clock
+     * @param height The height of the clock
+     * @param clockSize The general size of the clock
+     * @return the geometry of the clock
+     */
+    public static AnalogClockGeometry forSize(int width, int height, int clockSize) {
+        String key = width + "x" + height + "x" + clockSize;
+        synchronized (SHARED) {
+            AnalogClockGeometry geometry = SHARED.get(key);
+            if (geometry == null) {
+                geometry = new AnalogClockGeometry(width, height, clockSize);
+                SHARED.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Gets the table of the shapes of the hands of this clock
+     * @return the table of the hands
+     */
+    public AnalogHandTable getHands() {
+        return hands;
+    }
+
+    /**
+     * Gets the x value of a point around the clock
+     * @param position The position around the clock, in tick marks (e.g. 15 for 3 o'clock)
+     * @param radiusRatio The ratio of the distance of the point from the center, to the radius of the clock
+     * @return the x value of the point
+     */
+    public double getX(double position, double radiusRatio) {
+        return Math.cos(INITIAL_THETA-(position*THETA_INCREMENT))*radius*radiusRatio+centerX;
+    }
+
+    /**
+     * Gets the y value of a point around the clock
+     * @param position The position around the clock, in tick marks (e.g. 15 for 3 o'clock)
+     * @param radiusRatio The ratio of the distance of the point from the center, to the radius of the clock
+     * @return the y value of the point
+     */
+    public double getY(double position, double radiusRatio) {
+        return -1*Math.sin(INITIAL_THETA-(position*THETA_INCREMENT))*radius*radiusRatio+centerY;
+    }
+
+    /**
+     * Gets a point on the edge of the clock, where a tick mark starts
+     * @param index The index of the tick mark, from 0 to 59
+     * @return a copy of the point
+     */
+    public Point getCirclePoint(int index) {
+        return new Point(circleX[index], circleY[index]);
+    }
+
+    /**
+     * Gets a point inside the edge of the clock, where a tick mark ends
+     * @param index The index of the tick mark, from 0 to 59
+     * @return a copy of the point
+     */
+    public Point getTickPoint(int index) {
+        return new Point(tickX[index], tickY[index]);
+    }
+
+    /**
+     * Gets the number of tick marks around the clock
+     * @return the number of tick marks
+     */
+    public int getTickCount() {
+        return circleX.length;
+    }
+
+    /**
+     * Gets the width of the clock
+     * @return the width of the clock
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the clock
+     * @return the height of the clock
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the general size of the clock
+     * @return the size of the clock
+     */
+    public int getClockSize() {
+        return clockSize;
+    }
+
+    /**
+     * Gets the scale of the clock, which fonts and strokes are sized by
+     * @return the size of the shorter side of the clock, relative to a clock of 100 pixels
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Gets the width of the horizontal border around the clock
+     * @return the horizontal border
+     */
+    public double getHBorder() {
+        return hBorder;
+    }
+
+    /**
+     * Gets the width of the vertical border around the clock
+     * @return the vertical border
+     */
+    public double getVBorder() {
+        return vBorder;
+    }
+
+    /**
+     * Gets the radius of the clock
+     * @return the radius of the clock
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Gets the x value of the center of the clock
+     * @return the x value of the center
+     */
+    public double getCenterX() {
+        return centerX;
+    }
+
+    /**
+     * Gets the y value of the center of the clock
+     * @return the y value of the center
+     */
+    public double getCenterY() {
+        return centerY;
+    }
+}
@@ -0,0 +1,154 @@
+package clock;
+
+import java.awt.BasicStroke;
+import java.awt.geom.Path2D;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tables of the fully built, already stroked shapes of the hands of an analog clock of one size, so that drawing a hand
+ * is a table lookup and a fill. The hour hand has a shape for every minute of the half day, the minute hand for every
+ * second of the hour, and the second hand for every sixtieth of a second. Each shape is built the first time it is needed,
+ * and a table can be shared by any number of drawers, on any number of threads. Each shape is a FixedPath, so a drawer
+ * can fill it through its own FixedPath.Cursor without allocating
+ * @author Arik Dicks
+ */
+public final class AnalogHandTable {
+    /**
+     * The number of positions of the hour hand: one per minute of the half day
+     */
+    public static final int HOUR_POSITIONS = 12*60;
+    /**
+     * The number of positions of the minute hand: one per second of the hour
+     */
+    public static final int MINUTE_POSITIONS = 60*60;
+    /**
+     * The number of positions of the second hand: one per sixtieth of a second
+     */
+    public static final int SECOND_POSITIONS = 60*60;
+    // The proportions of the hands, which the SvgClockWriter shares so that its hands match the drawn ones
+    static final double HOUR_HAND_LENGTH_RATIO = 0.5;   // The length of the hour hand to the radius
+    static final double MINUTE_HAND_LENGTH_RATIO = 0.7; // The length of the minute hand to the radius
+    static final double SECOND_HAND_LENGTH_RATIO = 0.8; // The length of the second hand to the radius
+    static final double ARROW_LENGTH_RATIO = 0.1;       // The length of the arrow heads to the radius
+    static final double ARROW_WIDTH_RATIO = 0.05;       // The width of the arrow heads to the radius
+    static final double HAND_STROKE_RATIO = 0.8;        // The width of the hands of a clock of scale 1
+    private final AnalogClockGeometry geometry;
+    private final BasicStroke secondHandStroke;
+    private final BasicStroke handStroke;
+    private final AtomicReferenceArray<FixedPath> hourHands = new AtomicReferenceArray<>(HOUR_POSITIONS);
+    private final AtomicReferenceArray<FixedPath> minuteHands = new AtomicReferenceArray<>(MINUTE_POSITIONS);
+    private final AtomicReferenceArray<FixedPath> secondHands = new AtomicReferenceArray<>(SECOND_POSITIONS);
+
+    /**
+     * Constructs the empty tables of the hands of a clock
+     * @param geometry The geometry of the clock
+     */
+    AnalogHandTable(AnalogClockGeometry geometry) {
+        this.geometry = geometry;
+        float handStrokeWidth = (float)(geometry.getScale()*HAND_STROKE_RATIO);
+        secondHandStroke = new BasicStroke(handStrokeWidth);
+        handStroke = new BasicStroke(handStrokeWidth, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER);
+    }
+
+    /**
+     * Gets the shape of the hour hand
+     * @param position The position of the hand around the clock, in tick marks
+     * @return the shape of the hand, at the nearest minute
+     */
+    public FixedPath getHourHand(double position) {
+        return getHand(hourHands, HOUR_POSITIONS, position, HOUR_HAND_LENGTH_RATIO, true);
+    }
+
+    /**
+     * Gets the shape of the minute hand
+     * @param position The position of the hand around the clock, in tick marks
+     * @return the shape of the hand, at the nearest second
+     */
+    public FixedPath getMinuteHand(double position) {
+        return getHand(minuteHands, MINUTE_POSITIONS, position, MINUTE_HAND_LENGTH_RATIO, true);
+    }
+
+    /**
+     * Gets the shape of the second hand
+     * @param position The position of the hand around the clock, in tick marks
+     * @return the shape of the hand, at the nearest sixtieth of a second
+     */
+    public FixedPath getSecondHand(double position) {
+        return getHand(secondHands, SECOND_POSITIONS, position, SECOND_HAND_LENGTH_RATIO, false);
+    }
+
+    /**
+     * Gets the shape of a hand from its table, building it if it has not been built.
+     * Two threads may build the same shape at once, in which case either identical shape is kept
+     * @param hands The table of the hand
+     * @param positions The number of positions in the table
+     * @param position The position of the hand around the clock, in tick marks
+     * @param handLengthRatio The ratio of the length of the hand to the radius of the clock
+     * @param arrow True for a hand with an arrow at its end
+     * @return the shape of the hand
+     */
+    private FixedPath getHand(AtomicReferenceArray<FixedPath> hands, int positions, double position, double handLengthRatio, boolean arrow) {
+        int index = (int)Math.round(position*positions/60) % positions;
+        if (index < 0)
+            index += positions;
+        FixedPath hand = hands.get(index);
+        if (hand == null) {
+            hand = buildHand(index*60.0/positions, handLengthRatio, arrow);
+            hands.set(index, hand);
+        }
+        return hand;
+    }
+
+    /**
+     * Builds the outline of a hand, from the center of the clock to its tip, with an arrow at the tip of the hour and minute hands
+     * @param position The position of the hand around the clock, in tick marks
+     * @param handLengthRatio The ratio of the length of the hand to the radius of the clock
+     * @param arrow True for a hand with an arrow at its end
+     * @return the stroked outline of the hand
+     */
+    private FixedPath buildHand(double position, double handLengthRatio, boolean arrow) {
+        double centerX = geometry.getCenterX();
+        double centerY = geometry.getCenterY();
+
+        // Get the slope of the hand, and the point at its tip
+        double run = geometry.getX(position, 1)-centerX;
+        double rise = geometry.getY(position, 1)-centerY;
+        double outerX = centerX+(run*handLengthRatio);
+        double outerY = centerY+(rise*handLengthRatio);
+        Path2D.Double hand = new Path2D.Double();
+        if (!arrow) {
+            hand.moveTo(outerX, outerY);
+            hand.lineTo(centerX, centerY);
+            return new FixedPath(secondHandStroke.createStrokedShape(hand));
+        }
+
+        // Get the point at the center of the base of the arrow, and the points at its left and right
+        double arrowX1 = outerX-(run*ARROW_LENGTH_RATIO);
+        double arrowY1 = outerY-(rise*ARROW_LENGTH_RATIO);
+        double arrowX2 = arrowX1-(rise*ARROW_WIDTH_RATIO/2);
+        double arrowY2 = arrowY1+(run*ARROW_WIDTH_RATIO/2);
+        double arrowX3 = arrowX1+(rise*ARROW_WIDTH_RATIO/2);
+        double arrowY3 = arrowY1-(run*ARROW_WIDTH_RATIO/2);
+
+        // The hand (from the center of the clock to the base of the arrow), then the arrow
+        addLine(hand, arrowX1, arrowY1, centerX, centerY);
+        addLine(hand, arrowX1, arrowY1, arrowX2, arrowY2);
+        addLine(hand, arrowX1, arrowY1, arrowX3, arrowY3);
+        addLine(hand, outerX, outerY, arrowX2, arrowY2);
+        addLine(hand, outerX, outerY, arrowX3, arrowY3);
+        return new FixedPath(handStroke.createStrokedShape(hand));
+    }
+
+    /**
+     * Adds a separate line to a path
+     * @param path The path
+     * @param x1 The x value of the start of the line
+     * @param y1 The y value of the start of the line
+     * @param x2 The x value of the end of the line
+     * @param y2 The y value of the end of the line
+     */
+    private static void addLine(Path2D.Double path, double x1, double y1, double x2, double y2) {
+        path.moveTo(x1, y1);
+        path.lineTo(x2, y2);
+    }
+}
@@ -1,5 +1,7 @@
 package clock;
 
+import java.util.Arrays;
+
 /**
  * A clock that shows the date as well as time, that can be displayed as analog or digital, and colored by a variety of skins
  * @author Arik Dicks
@@ -7,10 +9,52 @@ package clock;
 public class ClockApp {
 
     /**
-     * Triggers the program by creating a controller object
-     * @param args
+     * Triggers the program by creating a controller object, or runs a headless mode when one is named
+     * @param args Empty to show the clock, "render" followed by the arguments of FrameSequenceRenderer,
+     * "wall" followed by the arguments of WorldClockController, "kiosk" followed by the arguments of KioskController,
+     * "serve" followed by the arguments of ClockImageServer, "loadtest" followed by the arguments of ClockImageLoadTest,
+     * or "svg" followed by the arguments of SvgClockWriter
+     * @throws Exception if a headless mode fails
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("render")) {
+            System.setProperty("java.awt.headless", "true");
+            FrameSequenceRenderer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            System.setProperty("java.awt.headless", "true");
+            setNoDelay();
+            ClockImageServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("loadtest")) {
+            System.setProperty("java.awt.headless", "true");
+            setNoDelay();
+            ClockImageLoadTest.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("svg")) {
+            System.setProperty("java.awt.headless", "true");
+            SvgClockWriter.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("wall")) {
+            WorldClockController.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("kiosk")) {
+            KioskController.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         ClockController controller = new ClockController();
     }
+
+    /**
+     * Turns off Nagle's algorithm for the clock image server of this process, unless it was set on the command line
+     */
+    private static void setNoDelay() {
+        if (System.getProperty(ClockImageServer.NO_DELAY_PROPERTY) == null)
+            System.setProperty(ClockImageServer.NO_DELAY_PROPERTY, "true");
+    }
 }
@@ -1,87 +1,305 @@
 package clock;
 
+import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.util.GregorianCalendar;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowStateListener;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.swing.*;
 
 /**
- * A component that contains a clock, with a public interface for updating the view(analog/digital), skin, date, hour, minute and second
+ * A component that contains a clock, with a public interface for updating the view(analog/digital), skin, date, hour, minute and second.
+ * The clock follows the size of the component: while the component is being resized, the clock of the last size is drawn centered,
+ * and the clock is only rebuilt at the new size once the size has settled.
+ * The clock is not repainted while it is not rendering, which is while it is not showing or its window is iconified,
+ * and is caught up with a single repaint when it is shown again. Changes of whether it is rendering are reported as the
+ * rendering bound property, so that whatever drives the clock can pause too.
+ * The clock is drawn off the Event Dispatch Thread by a RenderStage, and painting the component only blits the newest
+ * completed frame, so painting takes the same time however expensive the drawer is. Every change of the drawer is posted
+ * to the render stage, since the drawer belongs to its thread. The render stage only runs while the component is displayable,
+ * so a clock that is removed from its window holds no render thread and no frames
  * @author Arik Dicks
  */
 public class ClockComponent extends JComponent { 
+    /**
+     * The name of the bound property of whether the clock is rendering
+     */
+    public static final String RENDERING_PROPERTY = "rendering";
+    private static final boolean DEBUG_REPAINT = Boolean.getBoolean("clock.debugRepaint");
+    private static final Color DEBUG_FILL_COLOR = new Color(255, 0, 255, 48);
+    private static final Color DEBUG_EDGE_COLOR = new Color(255, 0, 255, 160);
+    private static final int RESIZE_DELAY = 150; // The milliseconds the size must settle for before the clock is rebuilt
+    private static final int MAX_RECENT_DRAWERS = 4;
+    private final Timer resizeTimer;
+    private final RenderStage renderStage;
+    // The drawers of the most recent sizes, in the current view and skin, which keep their rendered layers
+    private final LinkedHashMap<Dimension, ClockDrawer> recentDrawers = new LinkedHashMap<Dimension, ClockDrawer>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Dimension, ClockDrawer> eldest) {
+            return size() > MAX_RECENT_DRAWERS;
+        }
+    };
+    private final WindowStateListener windowStateListener = new WindowStateListener() {
+        @Override
+        public void windowStateChanged(WindowEvent e) {
+            updateRendering();
+        }
+    };
+    private Window window;              // The window whose iconification is watched
+    private volatile boolean rendering; // Whether the clock is showing in a window that is not iconified
+    private volatile boolean stale;     // Whether the time changed while the clock was not rendering
+    private volatile long skippedRepaints;
+    private volatile long catchUpRepaints;
     ClockSettings settings;
-    GregorianCalendar calendar;
-    ClockDrawer drawer;
+    volatile TimeSnapshot time;
+    ClockDrawer drawer; // The drawer of the render stage, once its posted changes have run
 
     /**
      * Constructs the clock component, drawing either a digital or analog clock depending on the input ClockSettings object
      * @param settings
      */
     public ClockComponent(ClockSettings settings) {
-        calendar = new GregorianCalendar();
+        time = TimeSnapshot.now();
         this.settings = settings;
         super.setPreferredSize(new Dimension(settings.getWidth(), settings.getHeight()));
-        if (settings.getIsAnalog()) {
-            setDrawerToAnalog();
-        } else {
-            setDrawerToDigital();
-        }
+        setOpaque(true);
+        renderStage = new RenderStage(this, "ClockRenderer");
+        setDrawer(settings.getView());
+        renderStage.requestFrame(time);
+        
+        // Every resize during a drag restarts the timer, so the clock is rebuilt once, after the drag
+        resizeTimer = new Timer(RESIZE_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                resizeClock();
+            }
+        });
+        resizeTimer.setRepeats(false);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                resizeTimer.restart();
+            }
+        });
+        addHierarchyListener(new HierarchyListener() {
+            @Override
+            public void hierarchyChanged(HierarchyEvent e) {
+                if ((e.getChangeFlags() & (HierarchyEvent.SHOWING_CHANGED | HierarchyEvent.PARENT_CHANGED)) != 0)
+                    updateRendering();
+            }
+        });
     }
     @Override
     public void paintComponent(Graphics g) {
         Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        drawer.draw(g2, calendar);  
+        BufferedImage image = renderStage.takeFrame().getImage();
+        
+        // Until a resize settles, the clock of the last size is drawn centered on the background
+        int offsetX = (image == null) ? 0 : (getWidth() - image.getWidth())/2;
+        int offsetY = (image == null) ? 0 : (getHeight() - image.getHeight())/2;
+        if (image == null || offsetX != 0 || offsetY != 0) {
+            g2.setColor(settings.getSkin().BACKGROUND_COLOR);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+        }
+        if (image != null)
+            g2.drawImage(image, offsetX, offsetY, null);
+        if (DEBUG_REPAINT) {
+            // Highlight the region that was repainted, which Swing coalesces into the clip
+            Rectangle clip = g2.getClipBounds();
+            if (clip != null) {
+                g2.setColor(DEBUG_FILL_COLOR);
+                g2.fill(clip);
+                g2.setColor(DEBUG_EDGE_COLOR);
+                g2.drawRect(clip.x, clip.y, clip.width - 1, clip.height - 1);
+            }
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        renderStage.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        renderStage.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Updates the time of the clock, requesting a frame of the new time from the render stage, which repaints the regions
+     * of the clock that changed once the frame is drawn
+     * @param time The new time of this clock
+     */
+    public void updateTime(TimeSnapshot time) {
+        this.time = time;
+        if (!rendering) {
+            // Nothing can be seen, so the clock is repainted once it is shown instead
+            stale = true;
+            skippedRepaints++;
+            if (ClockMetrics.ENABLED)
+                ClockMetrics.getInstance().addSkippedRepaint();
+            return;
+        }
+        renderStage.requestFrame(time);
     }
 
     /**
-     * Updates the time of the clock and repaints the clock
-     * @param calendar The new time of this clock
+     * Gets whether the clock is rendering, which is whether it is showing in a window that is not iconified
+     * @return true if the clock is rendering
      */
-    public void updateTime(GregorianCalendar calendar) {
-        this.calendar = calendar;
-        repaint();
+    public boolean isRendering() {
+        return rendering;
+    }
+
+    /**
+     * Gets the number of time updates that were not painted because the clock was not rendering
+     * @return the number of skipped repaints
+     */
+    public long getSkippedRepaints() {
+        return skippedRepaints;
+    }
+
+    /**
+     * Gets the number of times the clock was caught up with a single repaint after it started rendering again
+     * @return the number of catch up repaints
+     */
+    public long getCatchUpRepaints() {
+        return catchUpRepaints;
+    }
+
+    /**
+     * Updates whether the clock is rendering, after its hierarchy or its window's state changed, and catches the clock up
+     * with a single repaint if it missed any time updates while it was not rendering
+     */
+    private void updateRendering() {
+        Window ancestor = SwingUtilities.getWindowAncestor(this);
+        if (ancestor != window) {
+            if (window != null)
+                window.removeWindowStateListener(windowStateListener);
+            window = ancestor;
+            if (window != null)
+                window.addWindowStateListener(windowStateListener);
+        }
+        boolean iconified = (window instanceof Frame) && (((Frame) window).getExtendedState() & Frame.ICONIFIED) != 0;
+        boolean nowRendering = isShowing() && !iconified;
+        if (nowRendering == rendering)
+            return;
+        rendering = nowRendering;
+        if (nowRendering && stale) {
+            stale = false;
+            catchUpRepaints++;
+            renderStage.requestFullFrame(time);
+        }
+        firePropertyChange(RENDERING_PROPERTY, !nowRendering, nowRendering);
     }
 
     /**
      * Updates the skin of the clock and repaints the clock
      * @param newSkin The new skin of this clock
      */
-    public void updateSkin(Skin newSkin) {
-        drawer.setSkin(newSkin);
-        repaint();
+    public void updateSkin(final Skin newSkin) {
+        final ClockDrawer current = drawer;
+        renderStage.post(new Runnable() {
+            @Override
+            public void run() {
+                current.setSkin(newSkin);
+            }
+        });
+        recentDrawers.clear();
+        recentDrawers.put(new Dimension(settings.getWidth(), settings.getHeight()), drawer);
+    }
+
+    /**
+     * Sets whether the clock sweeps continuously and repaints the clock
+     * @param sweep True for the clock to sweep, false for it to tick once a second
+     */
+    public void setSweep(boolean sweep) {
+        postSweep(drawer, sweep);
     }
 
     /**
-     * Sets the drawer to an Analog drawer
+     * Posts a change of whether a drawer sweeps to the render stage
+     * @param target The drawer
+     * @param sweep True for the drawer to sweep, false for it to tick once a second
      */
-    private void setDrawerToAnalog() {
-        drawer = (ClockDrawer) new AnalogClockDrawer(settings.getSkin(), settings.getWidth(), settings.getHeight(), settings.getClockSize());
+    private void postSweep(final ClockDrawer target, final boolean sweep) {
+        renderStage.post(new Runnable() {
+            @Override
+            public void run() {
+                target.setSweep(sweep);
+            }
+        });
     }
 
     /**
-     * Sets the drawer to a Digital drawer
+     * Sets the drawer to a drawer of the given view
+     * @param view The view of the clock
      */
-    private void setDrawerToDigital() {
-        drawer = (ClockDrawer) new DigitalClockDrawer(settings.getSkin(), settings.getWidth(), settings.getHeight(), settings.getClockSize());
+    private void setDrawer(ClockView view) {
+        // The new drawer is not shared with the render stage until it is posted, so it can be set up here
+        drawer = view.createDrawer(settings.getSkin(), settings.getWidth(), settings.getHeight(), settings.getClockSize());
+        drawer.setSweep(settings.getFrameRate() > 0);
+        renderStage.setDrawer(drawer, settings.getWidth(), settings.getHeight());
+        recentDrawers.clear();
+        recentDrawers.put(new Dimension(settings.getWidth(), settings.getHeight()), drawer);
+    }
+
+    /**
+     * Rebuilds the clock at the current size of the component, if it has changed, and repaints the clock.
+     * The drawers of recent sizes are kept with their layers, and the geometries and dials of recent sizes are shared,
+     * so resizing back to a recent size costs nothing
+     */
+    private void resizeClock() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0 || (width == settings.getWidth() && height == settings.getHeight()))
+            return;
+        settings.setSize(width, height);
+        Dimension size = new Dimension(width, height);
+        ClockDrawer recent = recentDrawers.get(size);
+        if (recent == null) {
+            recent = settings.getView().createDrawer(settings.getSkin(), width, height, settings.getClockSize());
+            recentDrawers.put(size, recent);
+        }
+        postSweep(recent, settings.getFrameRate() > 0);
+        drawer = recent;
+        renderStage.setDrawer(recent, width, height);
     }
 
     /**
      * Sets the clock to be analog and repaints the clock
      */
     public void swapToAnalog() {
-        setDrawerToAnalog();
-        repaint();
+        setDrawer(ClockView.ANALOG);
     }
 
     /**
      * Sets the clock to be digital and repaints the clock
      */
     public void swapToDigital() {
-        setDrawerToDigital();
-        repaint();
+        setDrawer(ClockView.DIGITAL);
+    }
+
+    /**
+     * Sets the clock to be shown in the given view and repaints the clock
+     * @param view The new view of the clock
+     */
+    public void swapToView(ClockView view) {
+        setDrawer(view);
     }
 }
\ No newline at end of file
@@ -1,26 +1,34 @@
 package clock;
 
 import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.GregorianCalendar;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 /**
  * The controller for the clock, receives updates when the time changes or the user requests a UI change, and then updates the view
  * @author Arik Dicks
  */
 public class ClockController {
+    private static final int MINIMUM_SIZE = 200;
     private static TimeThread timeThread;
     private final JFrame frame;
     private final ClockComponent clock;
     private final ClockSettings settings;
     private final JPanel panel;
-    private final SkinList skins;
+    private final SkinCatalog skins;
+    private final TimeListener timeListener = new TimeThreadListener(this);
+    private Subscription subscription; // The clock's subscription to the time thread, only changed on the EDT
 
     /**
      * Constructs a Clock Controller
@@ -38,31 +46,40 @@ public class ClockController {
         JMenuItem analog = new JMenuItem("Analog");
         JMenuItem digital = new JMenuItem("Digital")
                 ;
+        JMenuItem sevenSegment = new JMenuItem("Seven Segment");
         ViewMenuListener viewMenuListener = new ViewMenuListener();
         analog.addActionListener(viewMenuListener);
         digital.addActionListener(viewMenuListener);
+        sevenSegment.addActionListener(viewMenuListener);
         
-        analog.setActionCommand("Analog");
-        digital.setActionCommand("Digital");
+        analog.setActionCommand(ClockView.ANALOG.name());
+        digital.setActionCommand(ClockView.DIGITAL.name());
+        sevenSegment.setActionCommand(ClockView.SEVEN_SEGMENT.name());
         
         viewMenu.add(analog);
         viewMenu.add(digital);
+        viewMenu.add(sevenSegment);
         
-        // Add Skin Menu
-        JMenu skinMenu = new JMenu("Skins");
-        skins = new SkinList();
-        SkinMenuListener listener = new SkinMenuListener();
-        for (int i = 0; i < skins.size(); i++) {
-            String name = skins.getSkin(i).getName();
-            JMenuItem skinMenuItem = new JMenuItem(name);
-            skinMenuItem.setActionCommand(name);
-            skinMenuItem.addActionListener(listener);
-            skinMenu.add(skinMenuItem);
+        // Add Skin Menu, which is built from the catalog when opened
+        skins = SkinCatalog.getDefault();
+        JMenu skinMenu = new SkinMenu("Skins", skins, new SkinMenuListener());
+        skins.addChangeListener(new SkinCatalogListener());
+        
+        // Add Sweep Menu
+        JMenu sweepMenu = new JMenu("Sweep");
+        SweepMenuListener sweepMenuListener = new SweepMenuListener();
+        String[] frameRates = {"0", "30", "60", "120"};
+        for (String frameRate : frameRates) {
+            JMenuItem sweepMenuItem = new JMenuItem(frameRate.equals("0") ? "Off" : frameRate + " FPS");
+            sweepMenuItem.setActionCommand(frameRate);
+            sweepMenuItem.addActionListener(sweepMenuListener);
+            sweepMenu.add(sweepMenuItem);
         }
         
         // Add Menus to MenuBar
         menuBar.add(viewMenu);
         menuBar.add(skinMenu);
+        menuBar.add(sweepMenu);
 
         // Add menu and clock to panel
         panel.add(menuBar, BorderLayout.NORTH);
@@ -72,31 +89,101 @@ public class ClockController {
         frame = new JFrame();
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setTitle("Clock");
-        frame.setResizable(false);
+        frame.setMinimumSize(new Dimension(MINIMUM_SIZE, MINIMUM_SIZE));
         frame.add(panel);
         frame.pack();
         frame.setVisible(true);
         
+        ClockMetrics.register();
         timeThread = new TimeThread();
         timeThread.setName("TimeThread");
-        timeThread.addTimeListener(new TimeThreadListener(this));
+        
+        // Stop ticking while the clock cannot be seen, and catch it up when it can
+        subscribeClock(settings.getFrameRate());
+        clock.addPropertyChangeListener(ClockComponent.RENDERING_PROPERTY, new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent e) {
+                subscription.setPaused(!clock.isRendering());
+            }
+        });
+        timeThread.setFrameRate(settings.getFrameRate());
         timeThread.start();
     }
+    /**
+     * Subscribes the clock to the time thread on the unit of time it shows, in place of its previous subscription: every
+     * frame while it sweeps, and otherwise every second, since every view shows the seconds. The clock has no coarser
+     * consumers, so its time thread always ticks at least once a second; ticking once a minute is for subscribers that
+     * only need minutes or coarser units
+     * @param frameRate The frame rate of the clock, or 0 if it does not sweep
+     */
+    private void subscribeClock(int frameRate) {
+        if (subscription != null)
+            subscription.unsubscribe();
+        subscription = timeThread.subscribe(timeListener, (frameRate > 0) ? TickUnit.FRAME : TickUnit.SECOND);
+        subscription.setPaused(!clock.isRendering());
+    }
     /**
      * Gets the current time from the time thread and passes the time to the clock components
      */
     public void updateClocksTime() {
-        GregorianCalendar calendar = timeThread.getCalendar();
-        clock.updateTime(calendar);
+        clock.updateTime(timeThread.getSnapshot());
     }
     /**
-     * Listens for skin change events and updates the clock with the new skin
+     * Listens for skin change events and updates the clock with the new skin, keeping the current skin if the new one is malformed
      */
     private class SkinMenuListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            settings.setSkin(skins.getSkin(e.getActionCommand()));
-            clock.updateSkin(skins.getSkin(e.getActionCommand()));
+            Skin skin;
+            try {
+                skin = skins.getSkin(e.getActionCommand());
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Cannot load skin " + e.getActionCommand() + ": " + ex.getMessage());
+                return;
+            }
+            if (skin != null) {
+                settings.setSkin(skin);
+                clock.updateSkin(skin);
+            }
+        }
+    }
+    /**
+     * Listens for the skin catalog being reloaded, and updates the clock if the definition of its skin changed.
+     * A skin whose new definition is malformed is reported, and the clock keeps its current skin
+     */
+    private class SkinCatalogListener implements ChangeListener {
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    Skin skin;
+                    try {
+                        skin = skins.getSkin(settings.getSkin().getName());
+                    } catch (IllegalArgumentException ex) {
+                        // Keep the current skin until its definition is fixed, rather than throwing on the EDT
+                        System.err.println("Cannot reload skin " + settings.getSkin().getName() + ": " + ex.getMessage());
+                        return;
+                    }
+                    if (skin != null && skin != settings.getSkin()) {
+                        settings.setSkin(skin);
+                        clock.updateSkin(skin);
+                    }
+                }
+            });
+        }
+    }
+    /**
+     * Listens for sweep change events and updates the time thread and clock with the new frame rate
+     */
+    private class SweepMenuListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            int frameRate = Integer.parseInt(e.getActionCommand());
+            settings.setFrameRate(frameRate);
+            subscribeClock(frameRate);
+            timeThread.setFrameRate(frameRate);
+            clock.setSweep(frameRate > 0);
         }
     }
     /**
@@ -105,12 +192,10 @@ public class ClockController {
     private class ViewMenuListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            if (e.getActionCommand().equals("Analog") && !settings.getIsAnalog()) {
-                settings.setIsAnalog(true);
-                clock.swapToAnalog();
-            } else if (e.getActionCommand().equals("Digital") && settings.getIsAnalog()) {
-                settings.setIsAnalog(false);
-                clock.swapToDigital();
+            ClockView view = ClockView.forName(e.getActionCommand());
+            if (view != settings.getView()) {
+                settings.setView(view);
+                clock.swapToView(view);
             }
         }
     }
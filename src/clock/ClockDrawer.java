@@ -1,15 +1,30 @@
 package clock;
 
 import java.awt.Graphics2D;
-import java.util.GregorianCalendar;
+import java.awt.Rectangle;
+import java.util.List;
 
 public interface ClockDrawer {
     /**
      * Draws the body of a clock
      * @param g2 The Graphics2D object that will be drawn on
-     * @param calendar The given time
+     * @param time The given time
      */
-    public void draw(Graphics2D g2, GregorianCalendar calendar);
+    public void draw(Graphics2D g2, TimeSnapshot time);
+
+    /**
+     * Gets the regions of the clock that differ between the frames drawn at two times
+     * @param oldTime The time of the previous frame
+     * @param newTime The time of the next frame
+     * @return the damaged regions, which need to be repainted
+     */
+    public List<Rectangle> getDamagedRegions(TimeSnapshot oldTime, TimeSnapshot newTime);
+
+    /**
+     * Sets whether the clock sweeps continuously between seconds, when drawn many times a second
+     * @param sweep True for the clock to sweep, false for it to tick once a second
+     */
+    public void setSweep(boolean sweep);
 
     /**
      * Sets the skin of the body of the clock
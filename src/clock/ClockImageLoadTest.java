@@ -0,0 +1,153 @@
+package clock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A load test of a ClockImageServer, which has a number of clients request clock images back to back for a fixed time,
+ * and reports the requests served per second and the latency of the requests. Without a URL, it starts a server of its own
+ * on a free port of localhost, and also reports how many of the requests had to be rendered
+ * @author Arik Dicks
+ */
+public class ClockImageLoadTest {
+    private static final int DEFAULT_CLIENTS = 16;
+    private static final int DEFAULT_SECONDS = 10;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private final URL url;
+    private final int clients;
+    private final long durationNanos;
+    private final Histogram latencies = new Histogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Constructs a load test
+     * @param url The URL of the clock image to request
+     * @param clients The number of clients requesting at once
+     * @param seconds How long the clients keep requesting
+     */
+    public ClockImageLoadTest(URL url, int clients, int seconds) {
+        if (clients <= 0 || seconds <= 0)
+            throw new IllegalArgumentException("A load test needs at least 1 client for at least 1 second");
+        this.url = url;
+        this.clients = clients;
+        this.durationNanos = seconds*1000000000L;
+    }
+
+    /**
+     * Runs the load test, blocking until every client has finished
+     * @return the requests completed per second
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public double run() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(clients);
+        final long start = System.nanoTime();
+        final long end = start + durationNanos;
+        for (int i = 0; i < clients; i++) {
+            Thread client = new Thread("LoadTestClient-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        request(end);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        return latencies.getCount()/((System.nanoTime() - start)/(NANOS_PER_MILLI*1000));
+    }
+
+    /**
+     * Requests the image back to back until the given time, reusing the connection between requests
+     * @param end The System.nanoTime to stop at
+     */
+    private void request(long end) {
+        byte[] buffer = new byte[8192];
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                long read = 0;
+                try (InputStream in = connection.getInputStream()) {
+                    int count;
+                    while ((count = in.read(buffer)) > 0) {
+                        read += count;
+                    }
+                }
+                if (connection.getResponseCode() != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+                bytes.addAndGet(read);
+                latencies.record(System.nanoTime() - start);
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets the latencies of the successful requests
+     * @return the histogram of the request latencies, in nanoseconds
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Gets the number of requests that failed
+     * @return the number of errors
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Gets the bytes of the images received
+     * @return the bytes received
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Runs a load test from the command line
+     * @param args [clients] [seconds] [url], where the url defaults to a server started on localhost
+     * @throws IOException if the server cannot be started
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        ClockImageServer server = null;
+        URL url;
+        if (args.length > 2) {
+            url = new URL(args[2]);
+        } else {
+            server = new ClockImageServer(0, Runtime.getRuntime().availableProcessors()*2, new SystemTimeSource(), SkinCatalog.getDefault());
+            server.start();
+            url = new URL("http://localhost:" + server.getPort() + ClockImageServer.PATH);
+        }
+
+        ClockImageLoadTest test = new ClockImageLoadTest(url, clients, seconds);
+        double requestsPerSecond = test.run();
+        Histogram latencies = test.getLatencies();
+        System.out.printf("%d clients for %d s against %s%n", clients, seconds, url);
+        System.out.printf("%d requests, %.1f requests/sec, %d errors, %.1f KB/request%n", latencies.getCount(), requestsPerSecond,
+                test.getErrors(), test.getBytes()/1024.0/Math.max(latencies.getCount(), 1));
+        System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n", latencies.getPercentile(50)/NANOS_PER_MILLI,
+                latencies.getPercentile(99)/NANOS_PER_MILLI, latencies.getPercentile(99.9)/NANOS_PER_MILLI, latencies.getMax()/NANOS_PER_MILLI);
+        if (server != null) {
+            System.out.printf("Rendered %d of %d requests%n", server.getRenderCount(), server.getRequestCount());
+            server.stop(0);
+        }
+    }
+}
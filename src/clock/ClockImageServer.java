@@ -0,0 +1,495 @@
+package clock;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * A headless HTTP server of clock images, for thin clients that cannot draw a clock themselves. A GET of /clock.png
+ * renders the clock of the current second as a PNG, e.g. /clock.png?zone=Europe/Paris&amp;skin=Default&amp;view=digital&amp;size=300,
+ * where every parameter is optional.
+ * <p>
+ * Each rendered image is cached by its zone, skin, view, size and second, so however many clients ask for the same clock
+ * in the same second, it is rendered and encoded once: the first request starts the render, and every concurrent request
+ * for it waits on the same future. The least recently used images are evicted once MAX_IMAGES are cached.
+ * Each image has an ETag, and a request whose If-None-Match matches it is answered with 304 and no body. An image is only
+ * valid for its second, so it is served as cacheable but always revalidated.
+ * Each worker thread keeps its own drawers of recent clocks, with their rendered layers, since drawers are not thread safe.
+ * <p>
+ * The JDK's server writes the headers and body of a response separately, so with Nagle's algorithm every response on a
+ * kept-alive connection waits out the client's delayed ACK, about 40 ms. A process that serves clocks must therefore be
+ * launched with -Dsun.net.httpserver.nodelay=true, which "ClockApp serve" and "ClockApp loadtest" set themselves. The server
+ * itself does not set it, since it is read once for the whole process
+ * @author Arik Dicks
+ */
+public class ClockImageServer {
+    /**
+     * The path clock images are served at
+     */
+    public static final String PATH = "/clock.png";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_SIZE = 200;
+    private static final int MIN_SIZE = 16;
+    private static final int MAX_SIZE = 2048;
+    private static final int MAX_IMAGES = 256;
+    private static final int MAX_DRAWERS_PER_THREAD = 8;
+    private static final long MILLIS_PER_SECOND = 1000;
+    /**
+     * The system property that turns off Nagle's algorithm on the connections of the JDK's HTTP server, which must be set
+     * to "true" before the first server is created
+     */
+    public static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TimeSource timeSource;
+    private final SkinCatalog skins;
+    private final String defaultSkinName = new ClockSettings().getSkin().getName();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final LinkedHashMap<Key, CompletableFuture<Image>> images = new LinkedHashMap<Key, CompletableFuture<Image>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Image>> eldest) {
+            return size() > MAX_IMAGES;
+        }
+    };
+    // The drawers of the most recent clocks each worker thread rendered
+    private final ThreadLocal<LinkedHashMap<Key, Renderer>> renderers = new ThreadLocal<LinkedHashMap<Key, Renderer>>() {
+        @Override
+        protected LinkedHashMap<Key, Renderer> initialValue() {
+            return new LinkedHashMap<Key, Renderer>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Renderer> eldest) {
+                    if (size() <= MAX_DRAWERS_PER_THREAD)
+                        return false;
+                    eldest.getValue().graphics.dispose();
+                    return true;
+                }
+            };
+        }
+    };
+
+    /**
+     * Constructs a server of the clocks of the given time source, which must be started to serve
+     * @param port The port to listen on, or 0 for any free port
+     * @param threads The number of worker threads
+     * @param timeSource The source of the time of the clocks
+     * @param skins The skins clients may ask for
+     * @throws IOException if the port cannot be bound
+     */
+    public ClockImageServer(int port, int threads, TimeSource timeSource, SkinCatalog skins) throws IOException {
+        if (threads <= 0)
+            throw new IllegalArgumentException("The server needs at least 1 thread: " + threads);
+        this.timeSource = timeSource;
+        this.skins = skins;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ClockImageServer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts serving
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving, waiting at most the given time for the requests being served to finish
+     * @param delaySeconds The most seconds to wait
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server listens on
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the number of requests that have been served
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of images that have been rendered, which is the number of requests that were not served from the cache
+     * @return the number of renders
+     */
+    public long getRenderCount() {
+        return renders.get();
+    }
+
+    /**
+     * Gets the number of requests that were answered with 304, because the client already had the image
+     * @return the number of requests answered with 304
+     */
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    /**
+     * Serves a request for a clock image
+     * @param exchange The request and its response
+     * @throws IOException if the response cannot be sent
+     */
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String method = exchange.getRequestMethod();
+        boolean head = method.equals("HEAD");
+        if (!head && !method.equals("GET")) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            sendError(exchange, 405, "Only GET and HEAD are supported");
+            return;
+        }
+        Key key;
+        try {
+            key = parseKey(parseQuery(exchange.getRequestURI().getRawQuery()),
+                    Math.floorDiv(timeSource.currentTimeMillis(), MILLIS_PER_SECOND));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        Image image;
+        try {
+            image = getImage(key);
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "Cannot render the clock: " + e);
+            return;
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", image.etag);
+        headers.set("Cache-Control", "public, max-age=0, must-revalidate");
+        if (image.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        headers.set("Content-Type", "image/png");
+        if (head) {
+            headers.set("Content-Length", Integer.toString(image.png.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, image.png.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(image.png);
+        }
+    }
+
+    /**
+     * Gets the image of a clock from the cache, rendering it if no request has started rendering it yet,
+     * or waiting for the request that did
+     * @param key The clock and second of the image
+     * @return the image
+     */
+    private Image getImage(Key key) {
+        CompletableFuture<Image> future;
+        boolean owner = false;
+        synchronized (images) {
+            future = images.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                images.put(key, future);
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                future.complete(render(key));
+                renders.incrementAndGet();
+            } catch (RuntimeException | IOException e) {
+                // Let the next request try again, rather than caching the failure
+                synchronized (images) {
+                    images.remove(key);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the clock to be rendered", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().toString(), e.getCause());
+        }
+    }
+
+    /**
+     * Renders and encodes the image of a clock, with a drawer of the current thread
+     * @param key The clock and second of the image
+     * @return the image
+     * @throws IOException if the image cannot be encoded
+     */
+    private Image render(Key key) throws IOException {
+        Key clock = key.withoutSecond();
+        LinkedHashMap<Key, Renderer> recent = renderers.get();
+        Renderer renderer = recent.get(clock);
+        if (renderer == null) {
+            renderer = new Renderer(key);
+            recent.put(clock, renderer);
+        }
+        renderer.drawer.draw(renderer.graphics, TimeSnapshot.of(key.second*MILLIS_PER_SECOND, renderer.calendar));
+        ByteArrayOutputStream png = new ByteArrayOutputStream(key.size*key.size/4);
+        ImageIO.write(renderer.image, "png", png);
+        return new Image(png.toByteArray(), key.etag());
+    }
+
+    /**
+     * Parses the clock a request asks for
+     * @param parameters The parameters of the request
+     * @param second The second of the image, in seconds since the epoch
+     * @return the key of the image
+     * @throws IllegalArgumentException if a parameter is not valid
+     */
+    private Key parseKey(Map<String, String> parameters, long second) {
+        TimeZone zone = TimeZone.getDefault();
+        String zoneName = parameters.get("zone");
+        if (zoneName != null) {
+            try {
+                zone = TimeZone.getTimeZone(ZoneId.of(zoneName));
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Unknown zone: " + zoneName);
+            }
+        }
+        // Skins are looked up by name even for the default, since the catalog hands out the same skin for every request
+        String skinName = parameters.get("skin");
+        if (skinName == null)
+            skinName = defaultSkinName;
+        Skin skin = skins.getSkin(skinName);
+        if (skin == null)
+            throw new IllegalArgumentException("Unknown skin: " + skinName);
+        // Read after the skin, so a reload in between can only give an old skin a new ETag, never a new skin an old one
+        int catalogVersion = skins.getVersion();
+        String viewName = parameters.get("view");
+        ClockView view = (viewName == null) ? ClockView.ANALOG : ClockView.forName(viewName);
+        int size = DEFAULT_SIZE;
+        String sizeValue = parameters.get("size");
+        if (sizeValue != null) {
+            try {
+                size = Integer.parseInt(sizeValue);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad size: " + sizeValue);
+            }
+            if (size < MIN_SIZE || size > MAX_SIZE)
+                throw new IllegalArgumentException("The size must be from " + MIN_SIZE + " to " + MAX_SIZE + ": " + size);
+        }
+        return new Key(zone, skin, catalogVersion, view, size, second);
+    }
+
+    /**
+     * Parses the parameters of a query string
+     * @param query The raw query string, or null
+     * @return the parameters, by name
+     */
+    private static Map<String, String> parseQuery(String query) {
+        HashMap<String, String> parameters = new HashMap<>();
+        if (query == null)
+            return parameters;
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0)
+                parameters.put(decode(pair.substring(0, separator)), decode(pair.substring(separator + 1)));
+        }
+        return parameters;
+    }
+
+    /**
+     * Decodes a part of a query string
+     * @param value The URL encoded value
+     * @return the decoded value
+     */
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is always supported", e);
+        }
+    }
+
+    /**
+     * Encodes a value as a part of a query string, which also makes it safe inside a quoted ETag
+     * @param value The value
+     * @return the URL encoded value
+     */
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is always supported", e);
+        }
+    }
+
+    /**
+     * Sends a plain text error response
+     * @param exchange The request and its response
+     * @param status The status code
+     * @param message The message of the error
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * An encoded image and its ETag
+     */
+    private static final class Image {
+        private final byte[] png;
+        private final String etag;
+
+        Image(byte[] png, String etag) {
+            this.png = png;
+            this.etag = etag;
+        }
+    }
+
+    /**
+     * A drawer of a clock with the image it draws into, owned by a single worker thread
+     */
+    private static final class Renderer {
+        private final ClockDrawer drawer;
+        private final BufferedImage image;
+        private final Graphics2D graphics;
+        private final GregorianCalendar calendar;
+
+        Renderer(Key key) {
+            drawer = key.view.createDrawer(key.skin, key.size, key.size, Math.max(key.size/100, 1));
+            image = new BufferedImage(key.size, key.size, BufferedImage.TYPE_INT_RGB);
+            graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            calendar = new GregorianCalendar(key.zone);
+        }
+    }
+
+    /**
+     * The clock of an image, and its second. Skins are compared by identity, so a skin that is redefined
+     * by reloading the catalog is a new clock. The version of the catalog the skin was found in is part of the key as well
+     * as of its ETag, so an image cached before a reload is never served with the ETag of the new catalog
+     */
+    private static final class Key {
+        private final TimeZone zone;
+        private final String zoneId;
+        private final Skin skin;
+        private final int catalogVersion;
+        private final ClockView view;
+        private final int size;
+        private final long second;
+
+        Key(TimeZone zone, Skin skin, int catalogVersion, ClockView view, int size, long second) {
+            this.zone = zone;
+            this.zoneId = zone.getID();
+            this.skin = skin;
+            this.catalogVersion = catalogVersion;
+            this.view = view;
+            this.size = size;
+            this.second = second;
+        }
+
+        Key withoutSecond() {
+            return new Key(zone, skin, catalogVersion, view, size, 0);
+        }
+
+        /**
+         * Builds the ETag of the image from the fields of the key, so it is the same after a restart, and differs for
+         * any two different clocks. The zone and skin names are URL encoded, so they cannot contain the separators
+         * @return the quoted ETag
+         */
+        String etag() {
+            return "\"" + second + "," + encode(zoneId) + "," + encode(skin.getName()) + "," + catalogVersion + ","
+                    + view.name() + "," + size + "x" + size + "\"";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return zoneId.equals(other.zoneId) && skin == other.skin && catalogVersion == other.catalogVersion
+                    && view == other.view && size == other.size && second == other.second;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = zoneId.hashCode();
+            hash = 31*hash + System.identityHashCode(skin);
+            hash = 31*hash + catalogVersion;
+            hash = 31*hash + view.hashCode();
+            hash = 31*hash + size;
+            return 31*hash + Long.hashCode(second);
+        }
+    }
+
+    /**
+     * Serves clock images from the command line, until the process is stopped
+     * @param args [port] [threads]
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors()*2;
+        ClockImageServer server = new ClockImageServer(port, threads, new SystemTimeSource(), SkinCatalog.getDefault());
+        server.start();
+        System.out.println("Serving clock images at http://localhost:" + server.getPort() + PATH);
+    }
+}
@@ -0,0 +1,335 @@
+package clock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of how late the clock ticks and how long it takes to paint, exposed over JMX as clock:type=ClockMetrics.
+ * The metrics are only recorded when the clock.metrics system property is set, and otherwise cost nothing, since every
+ * recording site checks the constant ENABLED flag. Every histogram is lock-free and of fixed size, so recording never blocks
+ * and never allocates
+ * @author Arik Dicks
+ */
+public final class ClockMetrics implements ClockMetricsMBean {
+    /**
+     * Whether metrics are recorded, set by the clock.metrics system property
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("clock.metrics");
+    private static final String OBJECT_NAME = "clock:type=ClockMetrics";
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final ClockMetrics INSTANCE = new ClockMetrics();
+    private final Histogram tickJitter = new Histogram();
+    private final Histogram tickToPaint = new Histogram();
+    private final Histogram bytesPerFrame = new Histogram();
+    private final Histogram[] phases = new Histogram[RenderPhase.values().length];
+    private final AtomicLong missedTicks = new AtomicLong();
+    private final AtomicLong missedFrames = new AtomicLong();
+    private final AtomicLong suspendedTicks = new AtomicLong();
+    private final AtomicLong skippedRepaints = new AtomicLong();
+    private final AtomicLong coalescedTicks = new AtomicLong();
+    private final AtomicLong pendingTickNanos = new AtomicLong(); // When the oldest unpainted tick was fired, or 0
+    private final AtomicLong frameSecond = new AtomicLong();      // The second frames are currently being counted in
+    private final AtomicLong framesThisSecond = new AtomicLong();
+    private volatile long framesLastSecond;
+    private final com.sun.management.ThreadMXBean allocations; // Null if the JVM cannot measure allocation
+    private final long allocationOverhead; // The bytes allocated by measuring the bytes allocated
+
+    /**
+     * Constructs the metrics, which is only done once, for the shared instance
+     */
+    private ClockMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogram();
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            allocations = (com.sun.management.ThreadMXBean) threads;
+            allocations.setThreadAllocatedMemoryEnabled(true);
+            long overhead = Long.MAX_VALUE;
+            for (int i = 0; i < 16; i++) {
+                overhead = Math.min(overhead, -getAllocatedBytes() + getAllocatedBytes());
+            }
+            allocationOverhead = overhead;
+        } else {
+            allocations = null;
+            allocationOverhead = 0;
+        }
+    }
+
+    /**
+     * Gets the metrics shared by every clock in this JVM
+     * @return the shared metrics
+     */
+    public static ClockMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the shared metrics with the platform MBean server, if metrics are enabled and they are not already registered
+     */
+    public static void register() {
+        if (!ENABLED)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another controller in this JVM registered them first
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Records a tick being fired by a time thread
+     * @param jitterNanos How late the tick was fired
+     */
+    public void recordTick(long jitterNanos) {
+        tickJitter.record(jitterNanos);
+        if (!pendingTickNanos.compareAndSet(0, System.nanoTime()))
+            coalescedTicks.incrementAndGet();
+    }
+
+    /**
+     * Records second boundaries that passed without a tick being fired
+     * @param count The number of missed ticks
+     */
+    public void addMissedTicks(long count) {
+        missedTicks.addAndGet(count);
+    }
+
+    /**
+     * Records frames that were dropped because the previous frame ran past their deadline
+     * @param count The number of missed frames
+     */
+    public void addMissedFrames(long count) {
+        missedFrames.addAndGet(count);
+    }
+
+    /**
+     * Records second boundaries that passed without a tick because no subscriber needed them
+     * @param count The number of suspended ticks
+     */
+    public void addSuspendedTicks(long count) {
+        suspendedTicks.addAndGet(count);
+    }
+
+    /**
+     * Records a time update that was not painted because its clock was not showing
+     */
+    public void addSkippedRepaint() {
+        skippedRepaints.incrementAndGet();
+    }
+
+    /**
+     * Starts timing a phase of drawing a clock
+     * @return the start of the phase, to be passed to endPhase, or 0 if metrics are disabled
+     */
+    public static long startPhase() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends timing a phase of drawing a clock
+     * @param phase The phase that ended
+     * @param start The start of the phase, from startPhase or the previous endPhase
+     * @return the end of the phase, which is the start of the next phase, or 0 if metrics are disabled
+     */
+    public static long endPhase(RenderPhase phase, long start) {
+        if (!ENABLED)
+            return 0;
+        long end = System.nanoTime();
+        INSTANCE.phases[phase.ordinal()].record(end - start);
+        return end;
+    }
+
+    /**
+     * Starts measuring the painting of a frame, on the thread that draws it, which must also end it
+     * @return the bytes the thread had allocated at the start of the frame
+     */
+    public long startFrame() {
+        return getAllocatedBytes();
+    }
+
+    /**
+     * Ends measuring the painting of a frame
+     * @param startBytes The bytes the thread had allocated at the start of the frame, from startFrame
+     */
+    public void endFrame(long startBytes) {
+        if (allocations != null)
+            bytesPerFrame.record(getAllocatedBytes() - startBytes - allocationOverhead);
+        long now = System.nanoTime();
+        long tick = pendingTickNanos.getAndSet(0);
+        if (tick != 0)
+            tickToPaint.record(now - tick);
+
+        // Count the frames of each whole second, moving to the next second on its first frame
+        long second = now/NANOS_PER_SECOND;
+        long current = frameSecond.get();
+        if (second != current && frameSecond.compareAndSet(current, second)) {
+            long frames = framesThisSecond.getAndSet(0);
+            // If whole seconds passed without a frame, the last of them had no frames
+            framesLastSecond = (second == current + 1) ? frames : 0;
+        }
+        framesThisSecond.incrementAndGet();
+    }
+
+    /**
+     * Gets the bytes the current thread has allocated
+     * @return the allocated bytes, or 0 if the JVM cannot measure allocation
+     */
+    private long getAllocatedBytes() {
+        return (allocations == null) ? 0 : allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Gets the histogram of a phase of drawing, e.g. to read other percentiles than the MBean exposes
+     * @param phase The phase
+     * @return the histogram of the time the phase takes, in nanoseconds
+     */
+    public Histogram getPhaseHistogram(RenderPhase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * Gets the histogram of how late the ticks were fired
+     * @return the histogram of the tick jitter, in nanoseconds
+     */
+    public Histogram getTickJitterHistogram() {
+        return tickJitter;
+    }
+
+    /**
+     * Gets the histogram of the time from a tick being fired to it being painted
+     * @return the histogram of the tick to paint time, in nanoseconds
+     */
+    public Histogram getTickToPaintHistogram() {
+        return tickToPaint;
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickJitter.getCount();
+    }
+
+    @Override
+    public long getMissedTicks() {
+        return missedTicks.get();
+    }
+
+    @Override
+    public long getMissedFrames() {
+        return missedFrames.get();
+    }
+
+    @Override
+    public long getSuspendedTicks() {
+        return suspendedTicks.get();
+    }
+
+    @Override
+    public long getSkippedRepaints() {
+        return skippedRepaints.get();
+    }
+
+    @Override
+    public long getCoalescedTicks() {
+        return coalescedTicks.get();
+    }
+
+    @Override
+    public long getTickJitterP50() {
+        return tickJitter.getPercentile(50);
+    }
+
+    @Override
+    public long getTickJitterP99() {
+        return tickJitter.getPercentile(99);
+    }
+
+    @Override
+    public long getTickJitterP999() {
+        return tickJitter.getPercentile(99.9);
+    }
+
+    @Override
+    public long getTickJitterMax() {
+        return tickJitter.getMax();
+    }
+
+    @Override
+    public long getTickToPaintP50() {
+        return tickToPaint.getPercentile(50);
+    }
+
+    @Override
+    public long getTickToPaintP99() {
+        return tickToPaint.getPercentile(99);
+    }
+
+    @Override
+    public long getBodyRenderP50() {
+        return getPhaseHistogram(RenderPhase.BODY).getPercentile(50);
+    }
+
+    @Override
+    public long getBodyRenderP99() {
+        return getPhaseHistogram(RenderPhase.BODY).getPercentile(99);
+    }
+
+    @Override
+    public long getDateRenderP50() {
+        return getPhaseHistogram(RenderPhase.DATE).getPercentile(50);
+    }
+
+    @Override
+    public long getDateRenderP99() {
+        return getPhaseHistogram(RenderPhase.DATE).getPercentile(99);
+    }
+
+    @Override
+    public long getHandsRenderP50() {
+        return getPhaseHistogram(RenderPhase.HANDS).getPercentile(50);
+    }
+
+    @Override
+    public long getHandsRenderP99() {
+        return getPhaseHistogram(RenderPhase.HANDS).getPercentile(99);
+    }
+
+    @Override
+    public long getFramesPerSecond() {
+        // A second without any frames is never closed, so report 0 if the last frame was long ago
+        long second = System.nanoTime()/NANOS_PER_SECOND;
+        return (second - frameSecond.get() > 1) ? 0 : framesLastSecond;
+    }
+
+    @Override
+    public long getAllocatedBytesPerFrame() {
+        return bytesPerFrame.getMean();
+    }
+
+    @Override
+    public long getAllocatedBytesPerFrameMax() {
+        return bytesPerFrame.getMax();
+    }
+
+    @Override
+    public void reset() {
+        tickJitter.reset();
+        tickToPaint.reset();
+        bytesPerFrame.reset();
+        for (Histogram phase : phases) {
+            phase.reset();
+        }
+        missedTicks.set(0);
+        missedFrames.set(0);
+        suspendedTicks.set(0);
+        skippedRepaints.set(0);
+        coalescedTicks.set(0);
+    }
+}
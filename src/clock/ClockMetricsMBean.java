@@ -0,0 +1,141 @@
+package clock;
+
+/**
+ * The management interface of the ClockMetrics, which exposes how late the clock ticks and how long it takes to paint.
+ * A frame is measured on the thread that draws it, which for a clock window is its render thread rather than the event
+ * dispatch thread. All times are in nanoseconds
+ * @author Arik Dicks
+ */
+public interface ClockMetricsMBean {
+
+    /**
+     * Gets the number of ticks and frames fired by the time threads
+     * @return the number of ticks
+     */
+    public long getTickCount();
+
+    /**
+     * Gets the number of second boundaries that passed without a tick being fired
+     * @return the number of missed ticks
+     */
+    public long getMissedTicks();
+
+    /**
+     * Gets the number of frames that were dropped because the previous frame ran past their deadline
+     * @return the number of missed frames
+     */
+    public long getMissedFrames();
+
+    /**
+     * Gets the number of second boundaries that passed without a tick, because no subscriber needed seconds or every subscriber was paused
+     * @return the number of suspended ticks
+     */
+    public long getSuspendedTicks();
+
+    /**
+     * Gets the number of time updates that were not painted, because their clock was not showing
+     * @return the number of skipped repaints
+     */
+    public long getSkippedRepaints();
+
+    /**
+     * Gets the number of ticks that were fired before the previous tick had been painted, and so were painted together
+     * @return the number of coalesced ticks
+     */
+    public long getCoalescedTicks();
+
+    /**
+     * Gets the median lateness of the ticks
+     * @return the 50th percentile of the tick jitter
+     */
+    public long getTickJitterP50();
+
+    /**
+     * Gets the 99th percentile of the lateness of the ticks
+     * @return the 99th percentile of the tick jitter
+     */
+    public long getTickJitterP99();
+
+    /**
+     * Gets the 99.9th percentile of the lateness of the ticks
+     * @return the 99.9th percentile of the tick jitter
+     */
+    public long getTickJitterP999();
+
+    /**
+     * Gets the latest any tick has fired
+     * @return the maximum tick jitter
+     */
+    public long getTickJitterMax();
+
+    /**
+     * Gets the median time from a tick being fired to it being painted
+     * @return the 50th percentile of the tick to paint time
+     */
+    public long getTickToPaintP50();
+
+    /**
+     * Gets the 99th percentile of the time from a tick being fired to it being painted
+     * @return the 99th percentile of the tick to paint time
+     */
+    public long getTickToPaintP99();
+
+    /**
+     * Gets the median time to draw the body of a clock
+     * @return the 50th percentile of the body render time
+     */
+    public long getBodyRenderP50();
+
+    /**
+     * Gets the 99th percentile of the time to draw the body of a clock
+     * @return the 99th percentile of the body render time
+     */
+    public long getBodyRenderP99();
+
+    /**
+     * Gets the median time to draw the date of a clock
+     * @return the 50th percentile of the date render time
+     */
+    public long getDateRenderP50();
+
+    /**
+     * Gets the 99th percentile of the time to draw the date of a clock
+     * @return the 99th percentile of the date render time
+     */
+    public long getDateRenderP99();
+
+    /**
+     * Gets the median time to draw the hands, or digital time, of a clock
+     * @return the 50th percentile of the hands render time
+     */
+    public long getHandsRenderP50();
+
+    /**
+     * Gets the 99th percentile of the time to draw the hands, or digital time, of a clock
+     * @return the 99th percentile of the hands render time
+     */
+    public long getHandsRenderP99();
+
+    /**
+     * Gets the number of frames painted during the last whole second
+     * @return the frames per second
+     */
+    public long getFramesPerSecond();
+
+    /**
+     * Gets the mean number of bytes allocated by the thread that draws the frames to paint a frame
+     * @return the mean bytes allocated per frame
+     */
+    public long getAllocatedBytesPerFrame();
+
+    /**
+     * Gets the most bytes allocated to paint a single frame
+     * @return the maximum bytes allocated per frame
+     */
+    public long getAllocatedBytesPerFrameMax();
+
+    /**
+     * Discards every recorded metric, e.g. to measure a new period
+     */
+    public void reset();
+}
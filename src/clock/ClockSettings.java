@@ -5,17 +5,18 @@ package clock;
  * @author Arik Dicks
  */
 public class ClockSettings {
-    private final int clockSize = 5;
-    private final int width = clockSize*100;
-    private final int height = clockSize*100;
-    private boolean isAnalog;
+    private static final int DEFAULT_SIZE = 500;
+    private int width = DEFAULT_SIZE;
+    private int height = DEFAULT_SIZE;
+    private ClockView view;
+    private int frameRate;
     private Skin skin;
 
     /**
      * Constructs a clock settings object with the default settings
      */
     public ClockSettings() {
-        isAnalog = true;
+        view = ClockView.ANALOG;
         skin = new Skin();
     }
 
@@ -24,7 +25,35 @@ public class ClockSettings {
      * @param bool True for this clock to be analog, false for digital
      */
     public void setIsAnalog(boolean bool) {
-        this.isAnalog = bool;
+        this.view = bool ? ClockView.ANALOG : ClockView.DIGITAL;
+    }
+
+    /**
+     * Sets the view setting of this clock
+     * @param view The new view setting of this clock
+     */
+    public void setView(ClockView view) {
+        this.view = view;
+    }
+
+    /**
+     * Sets the frame rate at which this clock sweeps
+     * @param frameRate The number of frames per second, or 0 for the clock to tick once a second
+     */
+    public void setFrameRate(int frameRate) {
+        this.frameRate = frameRate;
+    }
+
+    /**
+     * Sets the size of this clock
+     * @param width The new width of this clock
+     * @param height The new height of this clock
+     */
+    public void setSize(int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("The width and height of the clock must be positive");
+        this.width = width;
+        this.height = height;
     }
 
     /**
@@ -36,11 +65,11 @@ public class ClockSettings {
     }
 
     /**
-     * Gets the clock size clock setting
-     * @return the clock size setting of this clock
+     * Gets the clock size clock setting, which follows the width and height of the clock
+     * @return the clock size setting of this clock, a hundredth of its shorter side
      */
     public int getClockSize() {
-        return clockSize;
+        return Math.max(Math.min(width, height)/100, 1);
     }
 
     /**
@@ -64,7 +93,23 @@ public class ClockSettings {
      * @return true if the clock setting is set to analog, false if it is digital
      */
     public boolean getIsAnalog() {
-        return isAnalog;
+        return view == ClockView.ANALOG;
+    }
+
+    /**
+     * Gets the view clock setting
+     * @return the view setting of this clock
+     */
+    public ClockView getView() {
+        return view;
+    }
+
+    /**
+     * Gets the frame rate clock setting
+     * @return the number of frames per second this clock sweeps at, or 0 if it ticks once a second
+     */
+    public int getFrameRate() {
+        return frameRate;
     }
 
     /**
@@ -0,0 +1,59 @@
+package clock;
+
+/**
+ * The text every face of the clock shows: the numerals of the analog dial, the date, and the time as the digital clocks
+ * display it. The drawers and the SVG writer all format their text here, so that every face of a clock reads the same
+ * @author Arik Dicks
+ */
+public final class ClockText {
+    /**
+     * The number of numerals around the analog dial
+     */
+    public static final int NUMERAL_COUNT = 12;
+    private static final String[] NUMERAL_STRINGS = {"XII", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X", "XI"};
+    private static final String[] DAYS_OF_WEEK = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
+    private static final String[] MONTHS_IN_YEAR = {"January", "February", "March", "April", "May", "June", "July", "August", "September", "October", "November", "December"};
+
+    private ClockText() {
+    }
+
+    /**
+     * Gets the numeral of an hour on the analog dial
+     * @param hour The hour, from 0 (at the top of the dial) to 11
+     * @return the numeral, e.g. "XII" for 0
+     */
+    public static String getNumeral(int hour) {
+        return NUMERAL_STRINGS[hour];
+    }
+
+    /**
+     * Formats the date as the clocks display it
+     * @param time The given time
+     * @return the date, e.g. "Sunday October 18, 2026"
+     */
+    public static String formatDate(TimeSnapshot time) {
+        return DAYS_OF_WEEK[time.getDayOfWeek()-1] + " " + MONTHS_IN_YEAR[time.getMonth()] + " " + time.getDayOfMonth() + ", " + time.getYear();
+    }
+
+    /**
+     * Formats the time as the digital clocks display it, one symbol per cell (e.g. " 9:05:30 AM"), without allocating
+     * @param time The given time
+     * @param symbols The array the formatted time is written into, which holds one char per symbol
+     */
+    public static void formatTime(TimeSnapshot time, char[] symbols) {
+        int hour = time.getHour();
+        int minute = time.getMinute();
+        int second = time.getSecond();
+        symbols[0] = (hour > 9) ? (char)('0' + hour/10) : ' ';
+        symbols[1] = (char)('0' + hour%10);
+        symbols[2] = ':';
+        symbols[3] = (char)('0' + minute/10);
+        symbols[4] = (char)('0' + minute%10);
+        symbols[5] = ':';
+        symbols[6] = (char)('0' + second/10);
+        symbols[7] = (char)('0' + second%10);
+        symbols[8] = ' ';
+        symbols[9] = (time.isAm()) ? 'A' : 'P';
+        symbols[10] = 'M';
+    }
+}
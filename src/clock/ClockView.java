@@ -0,0 +1,50 @@
+package clock;
+
+/**
+ * The ways a clock can be viewed, each of which creates its own kind of drawer
+ * @author Arik Dicks
+ */
+public enum ClockView {
+    ANALOG {
+        @Override
+        public ClockDrawer createDrawer(Skin skin, int width, int height, int clockSize) {
+            return new AnalogClockDrawer(skin, width, height, clockSize);
+        }
+    },
+    DIGITAL {
+        @Override
+        public ClockDrawer createDrawer(Skin skin, int width, int height, int clockSize) {
+            return new DigitalClockDrawer(skin, width, height, clockSize);
+        }
+    },
+    SEVEN_SEGMENT {
+        @Override
+        public ClockDrawer createDrawer(Skin skin, int width, int height, int clockSize) {
+            return new SevenSegmentClockDrawer(skin, width, height, clockSize);
+        }
+    };
+
+    /**
+     * Creates a drawer for this view
+     * @param skin The skin of the clock
+     * @param width The width of the clock
+     * @param height The height of the clock
+     * @param clockSize The size of the clock
+     * @return a new drawer
+     */
+    public abstract ClockDrawer createDrawer(Skin skin, int width, int height, int clockSize);
+
+    /**
+     * Gets the view of the given name, ignoring case
+     * @param name The name of a view (e.g. "analog" or "seven_segment")
+     * @return the view of the given name
+     * @throws IllegalArgumentException if there is no view of the given name
+     */
+    public static ClockView forName(String name) {
+        for (ClockView view : values()) {
+            if (view.name().equalsIgnoreCase(name))
+                return view;
+        }
+        throw new IllegalArgumentException("Unknown view: " + name);
+    }
+}
@@ -0,0 +1,119 @@
+package clock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of rasterized analog dials, shared by every analog drawer, so that any number of clocks
+ * of the same size and antialiasing draw from a single set of pixels instead of each rendering their own.
+ * Dials are stored as IndexedDials, which are drawn in any skin by swapping their palette, so clocks of different skins
+ * share their dial too, and changing skins never rasterizes the dial again. The least recently used dials are evicted once the cache is full
+ * @author Arik Dicks
+ */
+public final class DialCache {
+    private static final int MAX_DIALS = 16;
+    private static final DialCache SHARED = new DialCache(MAX_DIALS);
+    private final LinkedHashMap<Key, IndexedDial> dials;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a cache that holds at most the given number of dials
+     * @param maxDials The most dials the cache holds before evicting the least recently used
+     */
+    public DialCache(final int maxDials) {
+        dials = new LinkedHashMap<Key, IndexedDial>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, IndexedDial> eldest) {
+                return size() > maxDials;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache shared by all analog drawers
+     * @return the shared cache
+     */
+    public static DialCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the dial rasterized for the given geometry and antialiasing, if it is cached
+     * @param geometry The geometry of the dial
+     * @param antialiasing The antialiasing hint the dial was rendered with
+     * @return the cached dial, or null if it has not been rendered
+     */
+    public synchronized IndexedDial get(AnalogClockGeometry geometry, Object antialiasing) {
+        IndexedDial dial = dials.get(new Key(geometry, antialiasing));
+        if (dial == null)
+            misses++;
+        else
+            hits++;
+        return dial;
+    }
+
+    /**
+     * Caches a rasterized dial
+     * @param geometry The geometry of the dial
+     * @param antialiasing The antialiasing hint the dial was rendered with
+     * @param dial The rasterized dial
+     */
+    public synchronized void put(AnalogClockGeometry geometry, Object antialiasing, IndexedDial dial) {
+        dials.put(new Key(geometry, antialiasing), dial);
+    }
+
+    /**
+     * Gets the number of dials in the cache
+     * @return the number of cached dials
+     */
+    public synchronized int size() {
+        return dials.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a cached dial
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to render a dial
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The inputs a dial is rasterized from: its size and its antialiasing
+     */
+    private static final class Key {
+        private final int width;
+        private final int height;
+        private final Object antialiasing;
+
+        Key(AnalogClockGeometry geometry, Object antialiasing) {
+            width = geometry.getWidth();
+            height = geometry.getHeight();
+            this.antialiasing = antialiasing;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return width == key.width && height == key.height && antialiasing == key.antialiasing;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = width;
+            hash = 31*hash + height;
+            return 31*hash + System.identityHashCode(antialiasing);
+        }
+    }
+}
@@ -2,26 +2,38 @@ package clock;
 
 import java.awt.BasicStroke;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Calculates several fields that are useful for all the digital drawers
+ * Calculates several fields that are useful for all the digital drawers.
+ * The body and date are cached in a layer that is only re-rendered when the day or skin changes,
+ * and the time is drawn by blitting pre-rasterized glyphs from a GlyphAtlas
  * @author Arik Dicks
  */
 public class DigitalClockDrawer implements ClockDrawer {
-    private static int WIDTH;
-    private static int HEIGHT;
-    private static int CLOCK_SIZE;
+    private static final String SYMBOLS = "0123456789: APM"; // Every symbol that can appear in the time
+    private final DigitalClockGeometry geometry;
+    private final int WIDTH;
+    private final int HEIGHT;
     private final Rectangle body;
-    private final int hBorder;
-    private final int vBorder;
-    private final int numOfSymbols = 11;
+    private final int numOfSymbols = DigitalClockGeometry.NUM_OF_SYMBOLS;
+    private final int timeBottomY;
+    private final int incrementX;
     protected Skin skin;
-    private Font font;
+    private final Font font;
+    private final Font dateFont;
+    private final BasicStroke bodyStroke;
+    private final char[] symbols = new char[numOfSymbols];
+    private BufferedImage bodyLayer; // The body and date, which only change daily
+    private int bodyLayerKey = -1;   // The day the body layer was rendered for
+    private Object layerAntialiasing; // The antialiasing hint the body layer was rendered with
+    private GlyphAtlas atlas;  // The symbols of the time, in the font and number color of the skin
 
     /**
      * Constructs a drawer that can draw a digital clock
@@ -31,14 +43,34 @@ public class DigitalClockDrawer implements ClockDrawer {
      * @param clockSize The size of the clock
      */
     public DigitalClockDrawer(Skin skin, int width, int height, int clockSize) {
+        this(skin, DigitalClockGeometry.forSize(width, height, clockSize));
+    }
+
+    /**
+     * Constructs a drawer that can draw a digital clock with the given geometry
+     * @param skin The skin of the clock
+     * @param geometry The geometry of the clock, which may be shared with other drawers
+     */
+    public DigitalClockDrawer(Skin skin, DigitalClockGeometry geometry) {
         this.skin = skin;
-        WIDTH = width;
-        HEIGHT = height;
-        CLOCK_SIZE = clockSize;
-        hBorder = (int)Math.round(WIDTH*0.1);
-        vBorder = (int)Math.round(HEIGHT*0.33);
-        body = new Rectangle(hBorder, vBorder, WIDTH-2*hBorder, HEIGHT-2*vBorder);
-        font = new Font(Font.MONOSPACED, Font.PLAIN, CLOCK_SIZE*11);
+        this.geometry = geometry;
+        WIDTH = geometry.getWidth();
+        HEIGHT = geometry.getHeight();
+        body = geometry.getBody();
+        timeBottomY = geometry.getTimeBottomY();
+        incrementX = geometry.getIncrementX();
+        double scale = geometry.getScale();
+        font = new Font(Font.MONOSPACED, Font.PLAIN, Math.max((int)Math.round(scale*11), 1));
+        dateFont = new Font(Font.MONOSPACED, Font.PLAIN, Math.max((int)Math.round(scale*4), 1));
+        bodyStroke = new BasicStroke((float)(scale*2), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    }
+
+    /**
+     * Gets the geometry of this clock
+     * @return the geometry of this clock
+     */
+    public DigitalClockGeometry getGeometry() {
+        return geometry;
     }
     
     /**
@@ -48,27 +80,81 @@ public class DigitalClockDrawer implements ClockDrawer {
     @Override
     public void setSkin(Skin skin) {
         this.skin = skin;
+        bodyLayerKey = -1;
+        atlas = null;
     }
+    /**
+     * Digital clocks only change once a second, so they draw the same whether or not they sweep
+     * @param sweep Ignored
+     */
+    @Override
+    public void setSweep(boolean sweep) {
+    }
+
     /**
      * Draws the digital clock at the given time
      * @param g2 The Graphics2D object to be drawn on
-     * @param calendar The given time
+     * @param time The given time
+     */
+    @Override
+    public void draw(Graphics2D g2, TimeSnapshot time) {
+        long phaseStart = ClockMetrics.startPhase();
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        int key = time.getDayKey();
+        if (bodyLayer == null || key != bodyLayerKey || antialiasing != layerAntialiasing) {
+            if (bodyLayer == null)
+                bodyLayer = g2.getDeviceConfiguration().createCompatibleImage(WIDTH, HEIGHT, Transparency.OPAQUE);
+            Graphics2D layer = bodyLayer.createGraphics();
+            layer.setRenderingHints(g2.getRenderingHints());
+            drawBody(layer);
+            drawDate(layer, time);
+            layer.dispose();
+            bodyLayerKey = key;
+            layerAntialiasing = antialiasing;
+            atlas = GlyphAtlas.get(SYMBOLS, font, skin.NUMBER_COLOR, g2);
+        }
+        g2.drawImage(bodyLayer, 0, 0, null);
+        phaseStart = ClockMetrics.endPhase(RenderPhase.BODY, phaseStart);
+        drawTime(g2, time);
+        ClockMetrics.endPhase(RenderPhase.HANDS, phaseStart);
+    }
+    
+    /**
+     * Gets the cells of the digits that changed between two times, or the whole clock if the date changed
+     * @param oldTime The time of the previous frame
+     * @param newTime The time of the next frame
+     * @return the damaged regions
      */
     @Override
-    public void draw(Graphics2D g2, GregorianCalendar calendar) {
-        drawBody(g2);
-        drawDate(g2, calendar);
-        drawTime(g2, calendar);
+    public List<Rectangle> getDamagedRegions(TimeSnapshot oldTime, TimeSnapshot newTime) {
+        List<Rectangle> regions = new ArrayList<>();
+        if (oldTime == null || oldTime.getDayKey() != newTime.getDayKey()) {
+            regions.add(new Rectangle(0, 0, WIDTH, HEIGHT));
+            return regions;
+        }
+        char[] oldSymbols = new char[numOfSymbols];
+        char[] newSymbols = new char[numOfSymbols];
+        ClockText.formatTime(oldTime, oldSymbols);
+        ClockText.formatTime(newTime, newSymbols);
+        int fontSize = font.getSize();
+        for (int i = 0; i < newSymbols.length; i++) {
+            if (oldSymbols[i] != newSymbols[i]) {
+                // The cell spans the full ascent and descent of the font, with a pixel of slack for antialiasing
+                int x = geometry.getSymbolX(i);
+                regions.add(new Rectangle(x - 1, timeBottomY - fontSize, incrementX + 2, fontSize + fontSize/3 + 1));
+            }
+        }
+        return regions;
     }
     
     /**
      * Draws the body of the digital clock
      * @param g2 The Graphics2D object to be drawn on
      */
-    private void drawBody(Graphics2D g2) {
+    protected void drawBody(Graphics2D g2) {
         g2.setColor(skin.BACKGROUND_COLOR);
         g2.fillRect(0, 0, WIDTH, HEIGHT);
-        g2.setStroke(new BasicStroke(10, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g2.setStroke(bodyStroke);
         g2.setColor(skin.PRIMARY_FILL_COLOR);
         g2.fill(body);
         g2.setColor(skin.EDGE_COLOR);
@@ -78,21 +164,11 @@ public class DigitalClockDrawer implements ClockDrawer {
     /**
      * Draws the date of the digital clock
      * @param g2 The Graphics2D object to be drawn on
-     * @param calendar The given time
+     * @param time The given time
      */
-    private void drawDate(Graphics2D g2, GregorianCalendar calendar) {     
-        String[] daysOfWeek = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
-        String[] monthsInYear = {"January", "February", "March", "April", "May", "June", "July", "August", "September", "October", "November", "December"};
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH);
-        int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
-        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-        String date = daysOfWeek[dayOfWeek-1] + " " + monthsInYear[month] + " " + dayOfMonth + ", " + year;
-        Font dateFont = new Font(Font.MONOSPACED, Font.PLAIN, CLOCK_SIZE*4);
-        g2.setFont(dateFont);
-        FontMetrics metrics = g2.getFontMetrics(dateFont);
-        int dateWidth = metrics.stringWidth(date);
-        int dateHeight = metrics.getHeight();
+    protected void drawDate(Graphics2D g2, TimeSnapshot time) {
+        TextLayoutCache.Text dateText = TextLayoutCache.getShared().get(g2, ClockText.formatDate(time), dateFont);
+        int dateWidth = dateText.getWidth();
         double bodyMinX = body.getMinX();
         double bodyWidth = body.getWidth();
         double bodyHeight = body.getHeight();
@@ -100,49 +176,21 @@ public class DigitalClockDrawer implements ClockDrawer {
         
         int dateX = (int)Math.round((bodyWidth/2 - dateWidth/2.0)+bodyMinX);
         int dateY = (int)Math.round(bodyMaxY - bodyHeight*0.15);
-        g2.drawString(date, dateX, dateY);
+        dateText.draw(g2, dateX, dateY);
     }
     
     /**
      * Draws the time of the digital clock
      * @param g2 The Graphics2D object to be drawn on
-     * @param calendar The given time
+     * @param time The given time
      */
-    private void drawTime(Graphics2D g2, GregorianCalendar calendar) {
-        int hour = calendar.get(Calendar.HOUR);
-        int minute = calendar.get(Calendar.MINUTE);
-        int second = calendar.get(Calendar.SECOND);
-        
-        double timeBoundsRatioX = 0.9;  // The ratio of the width of the time to the digital clock body
-        double timeIndentRatioX = 0.05; // The ratio of the time's horizontal indent, to the body height
-        double timeIndentRatioY = 0.40; // The ratio of the time's vertical indent from the top, to the body height
-        int timeWidth = (int)Math.round(timeBoundsRatioX*body.getWidth()); 
-        
-        // The y at which each digit will be drawn
-        int timeBottomY = (int)Math.round(body.getMaxY() - (timeIndentRatioY*body.getHeight())); 
-        
-        // The x at which the first digit will be drawn
-        int timeLeftX = (int)Math.round(body.getMinX() + (timeIndentRatioX*body.getWidth()));
-        
-        // The increase in the x position of each consecutive digit 
-        int incrementX = (int)Math.round(timeWidth/(double)numOfSymbols);
-        
+    private void drawTime(Graphics2D g2, TimeSnapshot time) {
         // The formatted time
-        String time = (hour > 9) ? ("" + hour) : (" " + hour);
-        time += (minute > 9) ? (":" + minute) : (":0" + minute);
-        time += (second > 9) ? (":" + second) : (":0" + second);
-        time += (calendar.get(Calendar.AM_PM) == Calendar.AM) ? (" AM") : (" PM");
+        ClockText.formatTime(time, symbols);
         
-        // Initialize style
-        font = new Font(Font.MONOSPACED, Font.PLAIN, CLOCK_SIZE*11);
-        g2.setStroke(new BasicStroke(3));
-        g2.setFont(font);
-        g2.setColor(skin.NUMBER_COLOR);
-        
-        // Draw each digit
-        for (int i = 0; i < time.length(); i++) {
-            int x = (i)*incrementX + 2 + timeLeftX;
-            g2.drawString("" + time.charAt(i), x, timeBottomY);
+        // Blit each symbol from the atlas
+        for (int i = 0; i < symbols.length; i++) {
+            atlas.drawSymbol(g2, symbols[i], geometry.getSymbolX(i), timeBottomY);
         }
-    }   
-}
\ No newline at end of file
+    }
+}
@@ -0,0 +1,153 @@
+package clock;
+
+import java.awt.Rectangle;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The immutable geometry of a digital clock of a given size: its body, and the cells the symbols of the time are drawn in.
+ * A geometry can be shared by any number of drawers, on any number of threads,
+ * and the geometries of the most recently used sizes are kept so that clocks of the same size share them
+ * @author Arik Dicks
+ */
+public final class DigitalClockGeometry {
+    /**
+     * The number of symbols in the displayed time (e.g. "12:00:00 AM")
+     */
+    public static final int NUM_OF_SYMBOLS = 11;
+    private static final int MAX_SHARED_GEOMETRIES = 8;
+    private static final LinkedHashMap<String, DigitalClockGeometry> SHARED = new LinkedHashMap<String, DigitalClockGeometry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DigitalClockGeometry> eldest) {
+            return size() > MAX_SHARED_GEOMETRIES;
+        }
+    };
+    private final int width;
+    private final int height;
+    private final int clockSize;
+    private final double scale;
+    private final int bodyX;
+    private final int bodyY;
+    private final int bodyWidth;
+    private final int bodyHeight;
+    private final int timeBottomY;
+    private final int timeLeftX;
+    private final int incrementX;
+
+    /**
+     * Constructs the geometry of a digital clock
+     * @param width The width of the clock container
+     * @param height The height of the clock container
+     * @param clockSize The size of the clock
+     */
+    public DigitalClockGeometry(int width, int height, int clockSize) {
+        this.width = width;
+        this.height = height;
+        this.clockSize = clockSize;
+        scale = Math.min(width, height)/100.0; // Fonts and strokes are sized for a 100 pixel clock, times the scale
+        int hBorder = (int)Math.round(width*0.1);
+        int vBorder = (int)Math.round(height*0.33);
+        bodyX = hBorder;
+        bodyY = vBorder;
+        bodyWidth = width-2*hBorder;
+        bodyHeight = height-2*vBorder;
+        
+        double timeBoundsRatioX = 0.9;  // The ratio of the width of the time to the digital clock body
+        double timeIndentRatioX = 0.05; // The ratio of the time's horizontal indent, to the body height
+        double timeIndentRatioY = 0.40; // The ratio of the time's vertical indent from the top, to the body height
+        int timeWidth = (int)Math.round(timeBoundsRatioX*bodyWidth); 
+        
+        // The y at which each digit will be drawn
+        timeBottomY = (int)Math.round((bodyY + bodyHeight) - (timeIndentRatioY*bodyHeight)); 
+        
+        // The x at which the first digit will be drawn
+        timeLeftX = (int)Math.round(bodyX + (timeIndentRatioX*bodyWidth));
+        
+        // The increase in the x position of each consecutive digit 
+        incrementX = (int)Math.round(timeWidth/(double)NUM_OF_SYMBOLS);
+    }
+
+    /**
+     * Gets the shared geometry of a digital clock of the given size, constructing it if no recent clock has had that size
+     * @param width The width of the clock container
+     * @param height The height of the clock container
+     * @param clockSize The size of the clock
+     * @return the geometry of the clock
+     */
+    public static DigitalClockGeometry forSize(int width, int height, int clockSize) {
+        String key = width + "x" + height + "x" + clockSize;
+        synchronized (SHARED) {
+            DigitalClockGeometry geometry = SHARED.get(key);
+            if (geometry == null) {
+                geometry = new DigitalClockGeometry(width, height, clockSize);
+                SHARED.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Gets the body of the clock
+     * @return a copy of the rectangle of the body
+     */
+    public Rectangle getBody() {
+        return new Rectangle(bodyX, bodyY, bodyWidth, bodyHeight);
+    }
+
+    /**
+     * Gets the x at which a symbol of the time is drawn
+     * @param index The index of the symbol, from 0 to NUM_OF_SYMBOLS-1
+     * @return the x of the symbol
+     */
+    public int getSymbolX(int index) {
+        return index*incrementX + 2 + timeLeftX;
+    }
+
+    /**
+     * Gets the y of the baseline the time is drawn on
+     * @return the y of the baseline of the time
+     */
+    public int getTimeBottomY() {
+        return timeBottomY;
+    }
+
+    /**
+     * Gets the width of the cell each symbol of the time is drawn in
+     * @return the width of a cell
+     */
+    public int getIncrementX() {
+        return incrementX;
+    }
+
+    /**
+     * Gets the width of the clock container
+     * @return the width of the clock container
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the clock container
+     * @return the height of the clock container
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the size of the clock
+     * @return the size of the clock
+     */
+    public int getClockSize() {
+        return clockSize;
+    }
+
+    /**
+     * Gets the scale of the clock, which fonts and strokes are sized by
+     * @return the size of the shorter side of the clock container, relative to a container of 100 pixels
+     */
+    public double getScale() {
+        return scale;
+    }
+}
@@ -0,0 +1,46 @@
+package clock;
+
+/**
+ * A time source that runs from a starting instant at a multiple of real time, e.g. to push a day of ticks through
+ * the clocks in seconds. Its time is measured against the monotonic clock, so it never jumps
+ * @author Arik Dicks
+ */
+public final class FastForwardTimeSource implements TimeSource {
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private final long startMillis;
+    private final long startNanos;
+    private final double speed;
+
+    /**
+     * Constructs a time source that starts now, at the given instant
+     * @param startMillis The starting time in milliseconds since the epoch
+     * @param speed How many times faster than real time the source runs
+     */
+    public FastForwardTimeSource(long startMillis, double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed))
+            throw new IllegalArgumentException("The speed must be positive: " + speed);
+        this.startMillis = startMillis;
+        this.startNanos = System.nanoTime();
+        this.speed = speed;
+    }
+
+    /**
+     * Gets how many times faster than real time the source runs
+     * @return the speed of the source
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return startMillis + (long)((System.nanoTime() - startNanos)*speed/NANOS_PER_MILLI);
+    }
+
+    @Override
+    public long nanosUntil(long timeMillis) {
+        // Round up, so that the time has been reached once the wait is over
+        long target = startNanos + (long)Math.ceil((timeMillis - startMillis)*NANOS_PER_MILLI/speed);
+        return target - System.nanoTime();
+    }
+}
@@ -0,0 +1,244 @@
+package clock;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * A shape that never changes once built, whose segments are copied out of its outline once, so that a Cursor can fill it
+ * without allocating. Java2D's antialiased pipeline asks every shape it fills for a new path iterator, which a Cursor
+ * answers with itself. A fixed path is immutable and can be shared by any number of threads
+ * @author Arik Dicks
+ */
+final class FixedPath implements Shape {
+    private final Shape outline;
+    private final byte[] types;
+    private final double[] coords;
+    private final int windingRule;
+
+    /**
+     * Constructs a fixed path from an outline
+     * @param outline The outline, which must not change afterwards
+     */
+    FixedPath(Shape outline) {
+        this.outline = outline;
+        PathIterator iterator = outline.getPathIterator(null);
+        windingRule = iterator.getWindingRule();
+        byte[] segmentTypes = new byte[16];
+        double[] segmentCoords = new double[64];
+        double[] segment = new double[6];
+        int segments = 0;
+        int coordCount = 0;
+        for (; !iterator.isDone(); iterator.next()) {
+            int type = iterator.currentSegment(segment);
+            int count = getCoordCount(type);
+            if (segments == segmentTypes.length)
+                segmentTypes = Arrays.copyOf(segmentTypes, segments*2);
+            if (coordCount + count > segmentCoords.length)
+                segmentCoords = Arrays.copyOf(segmentCoords, Math.max(segmentCoords.length*2, coordCount + count));
+            segmentTypes[segments++] = (byte) type;
+            System.arraycopy(segment, 0, segmentCoords, coordCount, count);
+            coordCount += count;
+        }
+        types = Arrays.copyOf(segmentTypes, segments);
+        coords = Arrays.copyOf(segmentCoords, coordCount);
+    }
+
+    /**
+     * Gets the number of coordinates of a type of segment
+     * @param type The type of the segment, from a PathIterator
+     * @return the number of coordinates, 2 per point
+     */
+    private static int getCoordCount(int type) {
+        switch (type) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                return 2;
+            case PathIterator.SEG_QUADTO:
+                return 4;
+            case PathIterator.SEG_CUBICTO:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return outline.getBounds();
+    }
+
+    @Override
+    public Rectangle2D getBounds2D() {
+        return outline.getBounds2D();
+    }
+
+    @Override
+    public boolean contains(double x, double y) {
+        return outline.contains(x, y);
+    }
+
+    @Override
+    public boolean contains(Point2D p) {
+        return outline.contains(p);
+    }
+
+    @Override
+    public boolean intersects(double x, double y, double w, double h) {
+        return outline.intersects(x, y, w, h);
+    }
+
+    @Override
+    public boolean intersects(Rectangle2D r) {
+        return outline.intersects(r);
+    }
+
+    @Override
+    public boolean contains(double x, double y, double w, double h) {
+        return outline.contains(x, y, w, h);
+    }
+
+    @Override
+    public boolean contains(Rectangle2D r) {
+        return outline.contains(r);
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at) {
+        return outline.getPathIterator(at);
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at, double flatness) {
+        return outline.getPathIterator(at, flatness);
+    }
+
+    /**
+     * Fills fixed paths one at a time, being the path iterator of each itself. A cursor must only be used by one thread
+     */
+    static final class Cursor implements Shape, PathIterator {
+        private FixedPath path;
+        private AffineTransform transform;
+        private int segment;
+        private int coord;
+
+        /**
+         * Fills a fixed path without allocating. The aliased pipeline copies every shape that is not a Path2D.Float
+         * into one before filling it, whatever its iterator, so without antialiasing the outline itself is filled
+         * @param g2 The Graphics2D object to be drawn on
+         * @param path The path to be filled
+         */
+        void fill(Graphics2D g2, FixedPath path) {
+            if (g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING) != RenderingHints.VALUE_ANTIALIAS_ON) {
+                g2.fill(path.outline);
+                return;
+            }
+            this.path = path;
+            try {
+                g2.fill(this);
+            } finally {
+                this.path = null;
+            }
+        }
+
+        @Override
+        public PathIterator getPathIterator(AffineTransform at) {
+            transform = (at == null || at.isIdentity()) ? null : at;
+            segment = 0;
+            coord = 0;
+            return this;
+        }
+
+        @Override
+        public PathIterator getPathIterator(AffineTransform at, double flatness) {
+            return new FlatteningPathIterator(getPathIterator(at), flatness);
+        }
+
+        @Override
+        public int getWindingRule() {
+            return path.windingRule;
+        }
+
+        @Override
+        public boolean isDone() {
+            return segment >= path.types.length;
+        }
+
+        @Override
+        public void next() {
+            coord += getCoordCount(path.types[segment++]);
+        }
+
+        @Override
+        public int currentSegment(double[] coords) {
+            int type = path.types[segment];
+            int count = getCoordCount(type);
+            if (transform == null)
+                System.arraycopy(path.coords, coord, coords, 0, count);
+            else
+                transform.transform(path.coords, coord, coords, 0, count/2);
+            return type;
+        }
+
+        @Override
+        public int currentSegment(float[] coords) {
+            int type = path.types[segment];
+            int count = getCoordCount(type);
+            if (transform == null) {
+                for (int i = 0; i < count; i++) {
+                    coords[i] = (float) path.coords[coord + i];
+                }
+            } else {
+                transform.transform(path.coords, coord, coords, 0, count/2);
+            }
+            return type;
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return path.getBounds();
+        }
+
+        @Override
+        public Rectangle2D getBounds2D() {
+            return path.getBounds2D();
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            return path.contains(x, y);
+        }
+
+        @Override
+        public boolean contains(Point2D p) {
+            return path.contains(p);
+        }
+
+        @Override
+        public boolean intersects(double x, double y, double w, double h) {
+            return path.intersects(x, y, w, h);
+        }
+
+        @Override
+        public boolean intersects(Rectangle2D r) {
+            return path.intersects(r);
+        }
+
+        @Override
+        public boolean contains(double x, double y, double w, double h) {
+            return path.contains(x, y, w, h);
+        }
+
+        @Override
+        public boolean contains(Rectangle2D r) {
+            return path.contains(r);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package clock;
+
+/**
+ * A time source that is stopped at a single instant
+ * @author Arik Dicks
+ */
+public final class FixedTimeSource implements TimeSource {
+    private final long timeMillis;
+
+    /**
+     * Constructs a time source stopped at the given instant
+     * @param timeMillis The time in milliseconds since the epoch
+     */
+    public FixedTimeSource(long timeMillis) {
+        this.timeMillis = timeMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return timeMillis;
+    }
+
+    @Override
+    public long nanosUntil(long timeMillis) {
+        return (timeMillis <= this.timeMillis) ? 0 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,185 @@
+package clock;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders a clock headlessly for every step of a time range, writing one PNG per frame.
+ * Frames are rendered in parallel across a fork-join pool, with each task reusing its own drawer and image,
+ * and every frame is written to disk as soon as it is drawn, so memory use does not grow with the length of the range
+ * @author Arik Dicks
+ */
+public class FrameSequenceRenderer {
+    private static final int FRAMES_PER_TASK = 240; // The most frames a task renders before it is split
+    private final long startMillis;
+    private final long stepMillis;
+    private final int frameCount;
+    private final ClockView view;
+    private final Skin skin;
+    private final int size;
+    private final TimeZone zone;
+    private final File outputDirectory;
+    private final AtomicLong framesRendered = new AtomicLong();
+
+    /**
+     * Constructs a renderer for a sequence of frames
+     * @param startMillis The time of the first frame, in milliseconds since the epoch
+     * @param endMillis The time after the last frame, in milliseconds since the epoch
+     * @param stepMillis The time between frames, in milliseconds
+     * @param view The view of the clock
+     * @param skin The skin of the clock
+     * @param size The width and height of each frame
+     * @param zone The time zone the clock shows
+     * @param outputDirectory The directory the frames are written into
+     */
+    public FrameSequenceRenderer(long startMillis, long endMillis, long stepMillis, ClockView view, Skin skin, int size, TimeZone zone, File outputDirectory) {
+        if (stepMillis <= 0)
+            throw new IllegalArgumentException("The step must be positive");
+        if (endMillis <= startMillis)
+            throw new IllegalArgumentException("The end must be after the start");
+        this.startMillis = startMillis;
+        this.stepMillis = stepMillis;
+        this.frameCount = (int)((endMillis - startMillis + stepMillis - 1)/stepMillis);
+        this.view = view;
+        this.skin = skin;
+        this.size = size;
+        this.zone = zone;
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Renders every frame on the given pool, blocking until all frames are written
+     * @param pool The pool the frames are rendered on
+     * @return the number of frames rendered per second
+     * @throws IOException if the output directory cannot be created or a frame cannot be written
+     */
+    public double render(ForkJoinPool pool) throws IOException {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Cannot create " + outputDirectory);
+        framesRendered.set(0);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new RenderTask(0, frameCount));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        double seconds = (System.nanoTime() - start)/1e9;
+        return framesRendered.get()/seconds;
+    }
+
+    /**
+     * Gets the number of frames in the sequence
+     * @return the number of frames
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the number of frames that have been written so far
+     * @return the number of frames written
+     */
+    public long getFramesRendered() {
+        return framesRendered.get();
+    }
+
+    /**
+     * Gets the file a frame is written to
+     * @param frame The index of the frame
+     * @return the file of the frame
+     */
+    public File getFrameFile(int frame) {
+        return new File(outputDirectory, String.format("frame-%06d.png", frame));
+    }
+
+    /**
+     * Renders a range of frames, splitting the range in half until it is small enough to render directly
+     */
+    private class RenderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        RenderTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FRAMES_PER_TASK) {
+                renderFrames();
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RenderTask(from, middle), new RenderTask(middle, to));
+            }
+        }
+
+        /**
+         * Renders each frame in this task's range with a single drawer and image
+         */
+        private void renderFrames() {
+            ClockDrawer drawer = view.createDrawer(skin, size, size, Math.max(size/100, 1));
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = image.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            GregorianCalendar calendar = new GregorianCalendar(zone);
+            try {
+                for (int frame = from; frame < to; frame++) {
+                    drawer.draw(g2, TimeSnapshot.of(startMillis + frame*stepMillis, calendar));
+                    ImageIO.write(image, "png", getFrameFile(frame));
+                    framesRendered.incrementAndGet();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                g2.dispose();
+            }
+        }
+    }
+
+    /**
+     * Renders a sequence of frames from the command line, and reports the number of frames rendered per second
+     * @param args from to stepMillis view skin size outputDirectory [zone],
+     * where from and to are local times in the form yyyy-MM-dd'T'HH:mm:ss
+     * @throws IOException if a frame cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 7) {
+            System.err.println("Usage: render <from> <to> <stepMillis> <analog|digital|seven_segment> <skin> <size> <outputDirectory> [zone]");
+            System.err.println("  from and to are local times in the form yyyy-MM-dd'T'HH:mm:ss");
+            System.exit(2);
+        }
+        TimeZone zone = (args.length > 7) ? TimeZone.getTimeZone(args[7]) : TimeZone.getDefault();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        format.setTimeZone(zone);
+        long from;
+        long to;
+        try {
+            from = format.parse(args[0]).getTime();
+            to = format.parse(args[1]).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Times must be in the form yyyy-MM-dd'T'HH:mm:ss", e);
+        }
+        Skin skin = SkinCatalog.getDefault().getSkin(args[4]);
+        if (skin == null)
+            throw new IllegalArgumentException("Unknown skin: " + args[4]);
+
+        FrameSequenceRenderer renderer = new FrameSequenceRenderer(from, to, Long.parseLong(args[2]),
+                ClockView.forName(args[3]), skin, Integer.parseInt(args[5]), zone, new File(args[6]));
+        double framesPerSecond = renderer.render(ForkJoinPool.commonPool());
+        System.out.printf("Rendered %d frames at %.1f frames/sec%n", renderer.getFramesRendered(), framesPerSecond);
+    }
+}
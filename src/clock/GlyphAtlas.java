@@ -0,0 +1,173 @@
+package clock;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A strip of pre-rasterized glyphs in a single font and color, so that text built from a small, fixed set of symbols
+ * can be drawn with image blits instead of laying out and rasterizing the font on every frame.
+ * Atlases are immutable once built, and are shared through a bounded cache keyed by font, color and antialiasing
+ * @author Arik Dicks
+ */
+public final class GlyphAtlas {
+    private static final int MAX_ATLASES = 16;
+    private static final LinkedHashMap<Key, GlyphAtlas> CACHE = new LinkedHashMap<Key, GlyphAtlas>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, GlyphAtlas> eldest) {
+            return size() > MAX_ATLASES;
+        }
+    };
+    private final String symbols;
+    private final BufferedImage image;
+    private final int[] glyphX;       // The x value of each glyph in the atlas image
+    private final Rectangle[] bounds;  // The pixel bounds of each glyph, relative to its origin on the baseline
+
+    /**
+     * Rasterizes each of the given symbols into a new atlas. Each glyph is cropped to the pixels it covers,
+     * so drawing a symbol blends no more of the image than drawString would
+     * @param symbols The symbols in the atlas
+     * @param font The font the symbols are drawn in
+     * @param color The color the symbols are drawn in
+     * @param target The Graphics2D object the atlas will be drawn on, whose device and rendering hints are used
+     */
+    private GlyphAtlas(String symbols, Font font, Color color, Graphics2D target) {
+        this.symbols = symbols;
+        glyphX = new int[symbols.length()];
+        bounds = new Rectangle[symbols.length()];
+        FontRenderContext context = target.getFontRenderContext();
+        int width = 0;
+        int height = 1;
+        for (int i = 0; i < symbols.length(); i++) {
+            // Pad the pixel bounds by a pixel, in case antialiasing reaches past them
+            bounds[i] = font.createGlyphVector(context, symbols.substring(i, i + 1)).getPixelBounds(context, 0, 0);
+            if (!bounds[i].isEmpty())
+                bounds[i].grow(1, 1);
+            glyphX[i] = width;
+            width += bounds[i].width;
+            height = Math.max(height, bounds[i].height);
+        }
+        // Glyphs that are not antialiased are either fully covered or not at all, which a bitmask image blits faster
+        int transparency = isTextAntialiased(target) ? Transparency.TRANSLUCENT : Transparency.BITMASK;
+        GraphicsConfiguration configuration = target.getDeviceConfiguration();
+        image = configuration.createCompatibleImage(Math.max(width, 1), height, transparency);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHints(target.getRenderingHints());
+        g2.setFont(font);
+        g2.setColor(color);
+        for (int i = 0; i < symbols.length(); i++) {
+            g2.drawString(symbols.substring(i, i + 1), glyphX[i] - bounds[i].x, -bounds[i].y);
+        }
+        g2.dispose();
+    }
+
+    /**
+     * Gets whether text drawn on the given Graphics2D object is antialiased
+     * @param g2 The Graphics2D object
+     * @return true if text is antialiased
+     */
+    private static boolean isTextAntialiased(Graphics2D g2) {
+        Object textAntialiasing = g2.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        if (textAntialiasing == RenderingHints.VALUE_TEXT_ANTIALIAS_OFF)
+            return false;
+        if (textAntialiasing == RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT || textAntialiasing == null)
+            return g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING) == RenderingHints.VALUE_ANTIALIAS_ON;
+        return true;
+    }
+
+    /**
+     * Gets the atlas of the given symbols in the given font and color, rasterizing it if it is not cached
+     * @param symbols The symbols in the atlas
+     * @param font The font the symbols are drawn in
+     * @param color The color the symbols are drawn in
+     * @param target The Graphics2D object the atlas will be drawn on
+     * @return the atlas
+     */
+    public static GlyphAtlas get(String symbols, Font font, Color color, Graphics2D target) {
+        Key key = new Key(symbols, font, color, target.getRenderingHint(RenderingHints.KEY_ANTIALIASING),
+                target.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING));
+        synchronized (CACHE) {
+            GlyphAtlas atlas = CACHE.get(key);
+            if (atlas == null) {
+                atlas = new GlyphAtlas(symbols, font, color, target);
+                CACHE.put(key, atlas);
+            }
+            return atlas;
+        }
+    }
+
+    /**
+     * Gets the number of atlases in the cache
+     * @return the number of cached atlases
+     */
+    public static int getCachedCount() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Draws a symbol, at the same position as drawString would draw it
+     * @param g2 The Graphics2D object to be drawn on
+     * @param symbol The symbol, which must be one of the symbols of this atlas
+     * @param x The x value of the left of the symbol
+     * @param baselineY The y value of the baseline of the symbol
+     */
+    public void drawSymbol(Graphics2D g2, char symbol, int x, int baselineY) {
+        int index = symbols.indexOf(symbol);
+        if (index < 0)
+            throw new IllegalArgumentException("Not in the atlas: " + symbol);
+        Rectangle glyph = bounds[index];
+        if (glyph.isEmpty())
+            return;
+        int destinationX = x + glyph.x;
+        int destinationY = baselineY + glyph.y;
+        g2.drawImage(image, destinationX, destinationY, destinationX + glyph.width, destinationY + glyph.height,
+                glyphX[index], 0, glyphX[index] + glyph.width, glyph.height, null);
+    }
+
+    /**
+     * The inputs an atlas is rasterized from
+     */
+    private static final class Key {
+        private final String symbols;
+        private final Font font;
+        private final int color;
+        private final Object antialiasing;
+        private final Object textAntialiasing;
+
+        Key(String symbols, Font font, Color color, Object antialiasing, Object textAntialiasing) {
+            this.symbols = symbols;
+            this.font = font;
+            this.color = color.getRGB();
+            this.antialiasing = antialiasing;
+            this.textAntialiasing = textAntialiasing;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return symbols.equals(key.symbols) && font.equals(key.font) && color == key.color
+                    && antialiasing == key.antialiasing && textAntialiasing == key.textAntialiasing;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = symbols.hashCode();
+            hash = 31*hash + font.hashCode();
+            hash = 31*hash + color;
+            hash = 31*hash + System.identityHashCode(antialiasing);
+            return 31*hash + System.identityHashCode(textAntialiasing);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values, such as latencies in nanoseconds or sizes in bytes, in a fixed amount of memory.
+ * Values are counted in log-linear buckets: exact below 16, and above that 16 buckets per power of two,
+ * so any percentile is accurate to within 1/16 (about 6%) of its value. Recording a value is a few atomic increments,
+ * and any number of threads can record and read at once
+ * @author Arik Dicks
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1)*SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are recorded as 0
+     * @param value The value to be recorded
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // Another thread raised the max first, so compare against the new max
+        }
+    }
+
+    /**
+     * Gets the value at a percentile of the recorded values
+     * @param percentile The percentile, from 0 to 100 (e.g. 99.9)
+     * @return the lowest value of the bucket the percentile falls in, or 0 if no values have been recorded
+     */
+    public long getPercentile(double percentile) {
+        long recorded = count.get();
+        if (recorded == 0)
+            return 0;
+        long rank = Math.max((long)Math.ceil(recorded*percentile/100), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank)
+                return Math.min(getBucketValue(bucket), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the number of recorded values
+     * @return the number of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the largest recorded value
+     * @return the largest value, or 0 if no values have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values
+     * @return the mean, or 0 if no values have been recorded
+     */
+    public long getMean() {
+        long recorded = count.get();
+        return (recorded == 0) ? 0 : total.get()/recorded;
+    }
+
+    /**
+     * Discards every recorded value. Values recorded while resetting may be partly kept
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Gets the bucket a value is counted in
+     * @param value A non-negative value
+     * @return the index of the bucket
+     */
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // At least SUB_BUCKET_BITS
+        int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1)*SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the lowest value counted in a bucket
+     * @param bucket The index of the bucket
+     * @return the lowest value of the bucket
+     */
+    private static long getBucketValue(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket/SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket%SUB_BUCKETS;
+        return (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+}
@@ -0,0 +1,164 @@
+package clock;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * The pixels of an analog dial of one size, stored as indices into a palette of the skin roles the dial is drawn in
+ * (the background, primary fill, edge and number colors) and blends between pairs of them, so that the dial is rasterized once
+ * and drawn in any skin by swapping the palette. The dial is captured by drawing it once in a probe skin, whose roles are pure red,
+ * green, blue and black, so that each channel of a pixel is the coverage of one role. Each pixel is then quantized
+ * to its one or two strongest roles, in LEVELS steps of blending between them. Any number of images, in any number of skins,
+ * share the same pixels
+ * @author Arik Dicks
+ */
+public final class IndexedDial {
+    private static final int ROLES = 4;   // The background, primary fill, edge and number colors, in that order
+    private static final int LEVELS = 40; // The steps of blending between two roles
+    private static final int[][] PAIRS = {{0, 1}, {0, 2}, {0, 3}, {1, 2}, {1, 3}, {2, 3}};
+    private static final int[][] PAIR_INDEX = new int[ROLES][ROLES];
+    private static final int PALETTE_SIZE = ROLES + PAIRS.length*(LEVELS - 1);
+    private final WritableRaster raster;
+
+    static {
+        for (int i = 0; i < PAIRS.length; i++) {
+            PAIR_INDEX[PAIRS[i][0]][PAIRS[i][1]] = i;
+        }
+    }
+
+    /**
+     * Constructs the indexed pixels of a dial from a rendering of the dial in the probe skin
+     * @param probe The dial, drawn opaque in the skin created by createProbeSkin
+     */
+    public IndexedDial(BufferedImage probe) {
+        int width = probe.getWidth();
+        int height = probe.getHeight();
+        BufferedImage indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, createPalette(createProbeSkin()));
+        raster = indexed.getRaster();
+        int[] row = new int[width];
+        byte[] indices = new byte[width];
+        int[] weights = new int[ROLES];
+        for (int y = 0; y < height; y++) {
+            probe.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                weights[0] = (rgb >> 16) & 0xFF;
+                weights[1] = (rgb >> 8) & 0xFF;
+                weights[2] = rgb & 0xFF;
+                weights[3] = Math.max(255 - weights[0] - weights[1] - weights[2], 0);
+                indices[x] = (byte) getIndex(weights);
+            }
+            raster.setDataElements(0, y, width, 1, indices);
+        }
+    }
+
+    /**
+     * Creates the skin a dial is drawn in to be captured, whose background, primary fill, edge and number colors
+     * are pure red, green, blue and black
+     * @return a new probe skin
+     */
+    public static Skin createProbeSkin() {
+        Skin probe = new Skin();
+        probe.setBackgroundColor(Color.RED);
+        probe.setPrimaryFillColor(Color.GREEN);
+        probe.setEdgeColorColor(Color.BLUE);
+        probe.setNumberColor(Color.BLACK);
+        probe.setName("Probe");
+        return probe;
+    }
+
+    /**
+     * Creates an image of the dial in the given skin, which shares its pixels with the images of every other skin
+     * @param skin The skin of the dial
+     * @return the dial, which must not be drawn on
+     */
+    public BufferedImage createImage(Skin skin) {
+        return new BufferedImage(createPalette(skin), raster, false, null);
+    }
+
+    /**
+     * Gets the width of the dial
+     * @return the width of the dial
+     */
+    public int getWidth() {
+        return raster.getWidth();
+    }
+
+    /**
+     * Gets the height of the dial
+     * @return the height of the dial
+     */
+    public int getHeight() {
+        return raster.getHeight();
+    }
+
+    /**
+     * Gets the palette index of a pixel covered by the given roles
+     * @param weights The coverage of each role, out of 255
+     * @return the index of the role, or of the blend of the two roles, nearest the pixel
+     */
+    private static int getIndex(int[] weights) {
+        // Keep only the two strongest roles, since at most two meet at any edge of the dial
+        int first = 0;
+        for (int role = 1; role < ROLES; role++) {
+            if (weights[role] > weights[first])
+                first = role;
+        }
+        int second = (first == 0) ? 1 : 0;
+        for (int role = 0; role < ROLES; role++) {
+            if (role != first && weights[role] > weights[second])
+                second = role;
+        }
+        if (weights[second] == 0)
+            return first;
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+        int level = (int)Math.round(LEVELS*weights[high]/(double)(weights[low] + weights[high]));
+        if (level == 0)
+            return low;
+        if (level == LEVELS)
+            return high;
+        return ROLES + PAIR_INDEX[low][high]*(LEVELS - 1) + level - 1;
+    }
+
+    /**
+     * Creates the palette of a skin: its four roles, then each step of blending between each pair of roles
+     * @param skin The skin
+     * @return the palette
+     */
+    private static IndexColorModel createPalette(Skin skin) {
+        Color[] roles = {skin.BACKGROUND_COLOR, skin.PRIMARY_FILL_COLOR, skin.EDGE_COLOR, skin.NUMBER_COLOR};
+        byte[] reds = new byte[PALETTE_SIZE];
+        byte[] greens = new byte[PALETTE_SIZE];
+        byte[] blues = new byte[PALETTE_SIZE];
+        for (int role = 0; role < ROLES; role++) {
+            reds[role] = (byte) roles[role].getRed();
+            greens[role] = (byte) roles[role].getGreen();
+            blues[role] = (byte) roles[role].getBlue();
+        }
+        for (int pair = 0; pair < PAIRS.length; pair++) {
+            Color low = roles[PAIRS[pair][0]];
+            Color high = roles[PAIRS[pair][1]];
+            for (int level = 1; level < LEVELS; level++) {
+                int index = ROLES + pair*(LEVELS - 1) + level - 1;
+                reds[index] = (byte) blend(low.getRed(), high.getRed(), level);
+                greens[index] = (byte) blend(low.getGreen(), high.getGreen(), level);
+                blues[index] = (byte) blend(low.getBlue(), high.getBlue(), level);
+            }
+        }
+        return new IndexColorModel(8, PALETTE_SIZE, reds, greens, blues);
+    }
+
+    /**
+     * Blends a channel of two colors
+     * @param low The channel of the first color
+     * @param high The channel of the second color
+     * @param level The step of blending, from 0 for the first color to LEVELS for the second
+     * @return the blended channel
+     */
+    private static int blend(int low, int high, int level) {
+        return (low*(LEVELS - level) + high*level + LEVELS/2)/LEVELS;
+    }
+}
@@ -0,0 +1,184 @@
+package clock;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+/**
+ * The controller for a clock shown full screen on a dedicated display, which draws the clock actively rather than through
+ * Swing's repaint: every tick of the time thread draws a whole frame straight into the back buffer of the window's
+ * BufferStrategy and flips it onto the screen, on the time thread itself, so frames are paced by the ticks and nothing
+ * stands between a tick and its frame. The frame times are printed when the program exits, which it does on any key or click
+ * @author Arik Dicks
+ */
+public class KioskController {
+    private static final int DEFAULT_FRAME_RATE = 60;
+    private static final int DEFAULT_BUFFERS = 2;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private final TimeThread timeThread;
+    private final JFrame frame;
+    private final BufferStrategy strategy;
+    private final ClockDrawer drawer;     // Only used by the time thread
+    private final Histogram frameTimes = new Histogram();     // From the start of drawing a frame to it being shown
+    private final Histogram frameIntervals = new Histogram(); // Between frames being shown
+    private final long startNanos = System.nanoTime();
+    private long lastShownNanos;
+    private volatile long lostFrames; // Frames drawn again because their buffer was lost
+
+    /**
+     * Constructs a controller that shows a clock full screen on the default screen device
+     * @param view The view of the clock
+     * @param skin The skin of the clock
+     * @param frameRate The number of frames per second when sweeping, or 0 to tick once a second
+     * @param buffers The number of buffers to flip between, 2 for double or 3 for triple buffering
+     */
+    public KioskController(ClockView view, Skin skin, int frameRate, int buffers) {
+        if (buffers < 2)
+            throw new IllegalArgumentException("A kiosk needs at least 2 buffers: " + buffers);
+
+        // Setup Frame, which Swing never paints, since every frame is drawn by the time thread
+        frame = new JFrame();
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setTitle("Clock");
+        frame.setUndecorated(true);
+        frame.setIgnoreRepaint(true);
+        frame.getContentPane().setIgnoreRepaint(true);
+        frame.setBackground(Color.BLACK);
+        frame.setCursor(Toolkit.getDefaultToolkit().createCustomCursor(
+                new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), new Point(), "None"));
+        GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        if (device.isFullScreenSupported()) {
+            device.setFullScreenWindow(frame);
+        } else {
+            Rectangle bounds = device.getDefaultConfiguration().getBounds();
+            frame.setBounds(bounds);
+            frame.setVisible(true);
+        }
+        frame.createBufferStrategy(buffers);
+        strategy = frame.getBufferStrategy();
+        frame.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                System.exit(0);
+            }
+        });
+        frame.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                System.exit(0);
+            }
+        });
+
+        // The drawer fills the whole screen, so a frame never needs to clear what the buffer held before
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        drawer = view.createDrawer(skin, width, height, Math.max(Math.min(width, height)/100, 1));
+        drawer.setSweep(frameRate > 0);
+        Runtime.getRuntime().addShutdownHook(new Thread("KioskStatistics") {
+            @Override
+            public void run() {
+                printStatistics();
+            }
+        });
+
+        ClockMetrics.register();
+        timeThread = new TimeThread();
+        timeThread.setName("TimeThread");
+        timeThread.addTimeListener(new TimeListener() {
+            @Override
+            public void timeChanged() {
+                drawFrame(timeThread.getSnapshot());
+            }
+        });
+        timeThread.setFrameRate(frameRate);
+        timeThread.start();
+    }
+
+    /**
+     * Draws a frame of the given time into the back buffer and shows it, drawing it again if the buffer was lost meanwhile
+     * @param time The time of the frame
+     */
+    private void drawFrame(TimeSnapshot time) {
+        long start = System.nanoTime();
+        long startBytes = ClockMetrics.ENABLED ? ClockMetrics.getInstance().startFrame() : 0;
+        int draws = 0;
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    drawer.draw(g2, time);
+                } finally {
+                    g2.dispose();
+                }
+                draws++;
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        lostFrames += draws - 1;
+        Toolkit.getDefaultToolkit().sync();
+        long shown = System.nanoTime();
+        if (ClockMetrics.ENABLED)
+            ClockMetrics.getInstance().endFrame(startBytes);
+        frameTimes.record(shown - start);
+        if (lastShownNanos != 0)
+            frameIntervals.record(shown - lastShownNanos);
+        lastShownNanos = shown;
+    }
+
+    /**
+     * Prints the frame count, rate and times, and the frames the time thread missed
+     */
+    private void printStatistics() {
+        long frames = frameTimes.getCount();
+        double seconds = (System.nanoTime() - startNanos)/(NANOS_PER_MILLI*1000);
+        System.out.printf("Kiosk: %d frames in %.1f s (%.1f fps), %d missed, %d redrawn after losing their buffer%n",
+                frames, seconds, frames/seconds, timeThread.getMissedFrames(), lostFrames);
+        printHistogram("Frame time", frameTimes);
+        printHistogram("Frame interval", frameIntervals);
+    }
+
+    /**
+     * Prints the percentiles of a histogram of nanoseconds, in milliseconds
+     * @param name The name of the histogram
+     * @param histogram The histogram
+     */
+    private static void printHistogram(String name, Histogram histogram) {
+        System.out.printf("%s: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n", name,
+                histogram.getMean()/NANOS_PER_MILLI, histogram.getPercentile(50)/NANOS_PER_MILLI,
+                histogram.getPercentile(99)/NANOS_PER_MILLI, histogram.getPercentile(99.9)/NANOS_PER_MILLI,
+                histogram.getMax()/NANOS_PER_MILLI);
+    }
+
+    /**
+     * Shows a clock full screen from the command line
+     * @param args [analog|digital|seven_segment] [skin] [frameRate] [buffers]
+     */
+    public static void main(String[] args) {
+        final ClockView view = (args.length > 0) ? ClockView.forName(args[0]) : ClockView.ANALOG;
+        final Skin skin = (args.length > 1) ? SkinCatalog.getDefault().getSkin(args[1]) : new ClockSettings().getSkin();
+        if (skin == null)
+            throw new IllegalArgumentException("Unknown skin: " + args[1]);
+        final int frameRate = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_FRAME_RATE;
+        final int buffers = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_BUFFERS;
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                new KioskController(view, skin, frameRate, buffers);
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package clock;
+
+/**
+ * The phases a clock is drawn in, each of which is timed separately by the ClockMetrics
+ * @author Arik Dicks
+ */
+public enum RenderPhase {
+    /**
+     * The body or dial of the clock, including the date of clocks that cache the two together
+     */
+    BODY,
+    /**
+     * The date, for clocks that draw it separately from the body
+     */
+    DATE,
+    /**
+     * The hands of an analog clock, or the time of a digital clock
+     */
+    HANDS
+}
@@ -0,0 +1,302 @@
+package clock;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JComponent;
+
+/**
+ * A dedicated thread that draws the frames of a clock off the Event Dispatch Thread, so that however long a drawer takes,
+ * painting the clock is only a blit. Frames are handed to the painting thread through three buffers: the renderer draws into
+ * the back buffer, and publishes it by atomically swapping it with the middle buffer, while the painter takes the newest
+ * frame by swapping its front buffer with the middle buffer. Neither thread ever waits for the other, and neither ever
+ * touches the buffer the other is using. Requests for frames are coalesced, so a renderer that falls behind draws only the newest time.
+ * <p>
+ * The drawer belongs to the render thread: it is set, and changed (e.g. its skin), only by changes posted to the stage,
+ * which are run on the render thread, in order, before the next frame.
+ * <p>
+ * The stage only has a render thread between start and stop, and the thread releases the frame buffers as it exits, so
+ * a stage whose component is not displayable holds neither a thread nor any frames. Changes and requests made while it
+ * is stopped are kept, and drawn once it is started again
+ * @author Arik Dicks
+ */
+public final class RenderStage {
+    private static final Runnable NO_CHANGE = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+    private final JComponent target;
+    private final String name;
+    private final AtomicReference<TimeSnapshot> pendingTime = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<Runnable> changes = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Frame> middle = new AtomicReference<>(new Frame());
+    private volatile Thread thread; // The render thread, or null while the stage is stopped
+    private volatile long renderedFrames;
+    private volatile long coalescedFrames;
+    private Frame front = new Frame(); // Only used by the painting thread
+    private Frame back = new Frame();  // Only used by the render thread
+    private Thread lastThread;         // The render thread last started, which may still be exiting
+    private ClockDrawer drawer;        // Only used by the render thread
+    private int width;
+    private int height;
+    private TimeSnapshot lastTime;     // The time of the last rendered frame
+
+    /**
+     * Constructs the render stage of a component, which draws nothing until it is started
+     * @param target The component the frames are painted on, which is repainted whenever a frame is published
+     * @param name The name of the render thread
+     */
+    public RenderStage(JComponent target, String name) {
+        this.target = target;
+        this.name = name;
+    }
+
+    /**
+     * Starts the render thread, if it is not running, which then draws the frame requested most recently in full.
+     * A render thread that is still finishing its last frame after being stopped is waited for first
+     */
+    public synchronized void start() {
+        if (thread != null)
+            return;
+        Thread exiting = lastThread;
+        if (exiting != null) {
+            try {
+                exiting.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        final Thread renderThread = new Thread(name) {
+            @Override
+            public void run() {
+                renderFrames(this);
+            }
+        };
+        renderThread.setDaemon(true);
+        thread = renderThread;
+        lastThread = renderThread;
+        post(NO_CHANGE);
+        renderThread.start();
+    }
+
+    /**
+     * Stops the render thread, which exits after the frame it is drawing and releases its frame buffers. This must only be
+     * called by the thread that paints the frames, which releases its own buffer here
+     */
+    public synchronized void stop() {
+        Thread renderThread = thread;
+        if (renderThread == null)
+            return;
+        thread = null;
+        LockSupport.unpark(renderThread);
+        front.release();
+    }
+
+    /**
+     * Requests a frame of the given time. If the render thread is busy, only the newest requested time is drawn next
+     * @param time The time of the frame
+     */
+    public void requestFrame(TimeSnapshot time) {
+        if (pendingTime.getAndSet(time) != null)
+            coalescedFrames++;
+        wake();
+    }
+
+    /**
+     * Requests a frame of the given time, which is repainted in full rather than only in the regions that changed,
+     * e.g. after the component was hidden
+     * @param time The time of the frame
+     */
+    public void requestFullFrame(TimeSnapshot time) {
+        post(NO_CHANGE);
+        requestFrame(time);
+    }
+
+    /**
+     * Posts a change to be run on the render thread before the next frame, which is then drawn and repainted in full
+     * @param change The change, e.g. of the drawer's skin
+     */
+    public void post(Runnable change) {
+        changes.add(change);
+        wake();
+    }
+
+    /**
+     * Wakes the render thread, if the stage is started
+     */
+    private void wake() {
+        Thread renderThread = thread;
+        if (renderThread != null)
+            LockSupport.unpark(renderThread);
+    }
+
+    /**
+     * Posts a change of the drawer, and the size of the frames it draws
+     * @param newDrawer The new drawer
+     * @param newWidth The width of the frames of the drawer
+     * @param newHeight The height of the frames of the drawer
+     */
+    public void setDrawer(final ClockDrawer newDrawer, final int newWidth, final int newHeight) {
+        post(new Runnable() {
+            @Override
+            public void run() {
+                drawer = newDrawer;
+                width = newWidth;
+                height = newHeight;
+            }
+        });
+    }
+
+    /**
+     * Takes the newest completed frame, which must only be called by the one thread that paints the frames
+     * @return the newest frame, whose image is null if no frame has been completed yet
+     */
+    public Frame takeFrame() {
+        if (middle.get().fresh) {
+            front.fresh = false;
+            front = middle.getAndSet(front);
+        }
+        return front;
+    }
+
+    /**
+     * Gets the number of frames that have been rendered
+     * @return the number of rendered frames
+     */
+    public long getRenderedFrames() {
+        return renderedFrames;
+    }
+
+    /**
+     * Gets the number of requested frames that were never drawn, because a newer frame was requested first
+     * @return the number of coalesced frames
+     */
+    public long getCoalescedFrames() {
+        return coalescedFrames;
+    }
+
+    /**
+     * Runs the posted changes and draws the requested frames, parking whenever there is nothing to do, until stopped,
+     * then releases the frame buffers
+     * @param renderThread The render thread, which runs until it is no longer the stage's thread
+     */
+    private void renderFrames(Thread renderThread) {
+        try {
+            runFrames(renderThread);
+        } finally {
+            releaseFrames();
+        }
+    }
+
+    /**
+     * Runs the posted changes and draws the requested frames, parking whenever there is nothing to do, until stopped
+     * @param renderThread The render thread, which runs until it is no longer the stage's thread
+     */
+    private void runFrames(Thread renderThread) {
+        while (thread == renderThread) {
+            boolean changed = false;
+            Runnable change;
+            while ((change = changes.poll()) != null) {
+                change.run();
+                changed = true;
+            }
+            TimeSnapshot time = pendingTime.getAndSet(null);
+            if (time == null && changed)
+                time = lastTime;
+            if (time == null || drawer == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            render(time);
+
+            // The damaged regions are only valid between frames of the same drawer and of the component's size
+            if (changed || lastTime == null || target.getWidth() != width || target.getHeight() != height) {
+                target.repaint();
+            } else {
+                for (Rectangle region : drawer.getDamagedRegions(lastTime, time)) {
+                    target.repaint(region);
+                }
+            }
+            lastTime = time;
+        }
+    }
+
+    /**
+     * Draws a frame into the back buffer and publishes it
+     * @param time The time of the frame
+     */
+    private void render(TimeSnapshot time) {
+        if (back.image == null || back.image.getWidth() != width || back.image.getHeight() != height) {
+            if (back.graphics != null)
+                back.graphics.dispose();
+            GraphicsConfiguration configuration = target.getGraphicsConfiguration();
+            back.image = (configuration == null) ? new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)
+                    : configuration.createCompatibleImage(width, height, Transparency.OPAQUE);
+            back.graphics = back.image.createGraphics();
+            back.graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+        long startBytes = ClockMetrics.ENABLED ? ClockMetrics.getInstance().startFrame() : 0;
+        drawer.draw(back.graphics, time);
+        back.time = time;
+        back.fresh = true;
+        back = middle.getAndSet(back);
+        renderedFrames++;
+        if (ClockMetrics.ENABLED)
+            ClockMetrics.getInstance().endFrame(startBytes);
+    }
+
+    /**
+     * Releases the images of the back and middle buffers, as the render thread exits
+     */
+    private void releaseFrames() {
+        back.release();
+        Frame published = middle.get();
+        published.fresh = false;
+        published.release();
+    }
+
+    /**
+     * A buffer of the frames handed from the render thread to the painting thread
+     */
+    public static final class Frame {
+        private BufferedImage image;
+        private Graphics2D graphics;
+        private TimeSnapshot time;
+        private volatile boolean fresh; // Whether the frame was published and has not been taken
+
+        /**
+         * Releases the image of the buffer, which is recreated when a frame is next drawn in it
+         */
+        private void release() {
+            if (graphics != null)
+                graphics.dispose();
+            graphics = null;
+            image = null;
+            time = null;
+        }
+
+        /**
+         * Gets the image of the frame, which must not be drawn on
+         * @return the image, or null if no frame has been drawn in this buffer
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /**
+         * Gets the time the frame was drawn at
+         * @return the time of the frame, or null if no frame has been drawn in this buffer
+         */
+        public TimeSnapshot getTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package clock;
+
+/**
+ * A time source that replays a recorded list of instants, holding each instant for the same span of real time,
+ * and then stopping at the last instant, so that a sequence of frames can be reproduced exactly
+ * @author Arik Dicks
+ */
+public final class ReplayTimeSource implements TimeSource {
+    private final long[] instants;
+    private final long intervalNanos;
+    private final long startNanos;
+
+    /**
+     * Constructs a time source that starts replaying now
+     * @param instants The recorded times in milliseconds since the epoch, in the order they are replayed
+     * @param intervalNanos The nanoseconds of real time each instant is held for
+     */
+    public ReplayTimeSource(long[] instants, long intervalNanos) {
+        if (instants.length == 0)
+            throw new IllegalArgumentException("A replay needs at least one instant");
+        if (intervalNanos <= 0)
+            throw new IllegalArgumentException("The interval must be positive: " + intervalNanos);
+        this.instants = instants.clone();
+        this.intervalNanos = intervalNanos;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets whether every instant has been replayed, and the source has stopped at the last one
+     * @return true if the replay is over
+     */
+    public boolean isFinished() {
+        return getIndex() == instants.length - 1;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return instants[getIndex()];
+    }
+
+    @Override
+    public long nanosUntil(long timeMillis) {
+        int index = getIndex();
+        if (instants[index] >= timeMillis)
+            return 0;
+        for (int next = index + 1; next < instants.length; next++) {
+            if (instants[next] >= timeMillis)
+                return startNanos + next*intervalNanos - System.nanoTime();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the index of the instant being replayed
+     * @return the index of the current instant
+     */
+    private int getIndex() {
+        long elapsed = System.nanoTime() - startNanos;
+        return (int)Math.min(elapsed/intervalNanos, instants.length - 1);
+    }
+}
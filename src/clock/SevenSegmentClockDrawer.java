@@ -0,0 +1,259 @@
+package clock;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Responsible for drawing a digital clock as a classic seven-segment display.
+ * Every segment of every digit is a path built once for the size of the clock, and the lit segments of each digit value
+ * are joined into a single path, so each frame fills one path per digit, without allocating, and no font is rasterized while the time changes. The body, date, colons, AM/PM and unlit segments are cached in a layer
+ * that is only re-rendered when the day, half of the day or skin changes
+ * @author Arik Dicks
+ */
+public class SevenSegmentClockDrawer extends DigitalClockDrawer {
+    private static final int SEGMENT_COUNT = 7;
+    private static final int[] DIGIT_CELLS = {0, 1, 3, 4, 6, 7}; // The cells of the time that hold digits
+    private static final int[] COLON_CELLS = {2, 5};
+    private static final int MERIDIEM_CELL = 9;
+    private static final double DIGIT_WIDTH_RATIO = 0.7;   // The ratio of the width of a digit to the width of its cell
+    private static final double DIGIT_HEIGHT_RATIO = 1.5;  // The ratio of the height of a digit to the width of its cell
+    private static final double THICKNESS_RATIO = 0.18;    // The ratio of the thickness of a segment to the width of a digit
+    private static final double UNLIT_SEGMENT_ALPHA = 0.12; // How strongly the unlit segments show through the body
+    /**
+     * The lit segments of each digit, one bit per segment from a (bit 0, the top) clockwise to f, then g (bit 6, the middle)
+     */
+    private static final int[] DIGIT_SEGMENTS = {0x3F, 0x06, 0x5B, 0x4F, 0x66, 0x6D, 0x7D, 0x07, 0x7F, 0x6F};
+    private static final String[] MERIDIEMS = {"AM", "PM"};
+    private final Path2D.Float[][] segments = new Path2D.Float[DIGIT_CELLS.length][SEGMENT_COUNT];
+    private final FixedPath[][] digits = new FixedPath[DIGIT_CELLS.length][DIGIT_SEGMENTS.length]; // The lit segments of each digit value
+    private final FixedPath.Cursor digitCursor = new FixedPath.Cursor();
+    private final Rectangle[] digitBounds = new Rectangle[DIGIT_CELLS.length];
+    private final Rectangle2D.Float[] colonDots = new Rectangle2D.Float[COLON_CELLS.length*2];
+    private final Font meridiemFont;
+    private final int digitTopY;
+    private final char[] symbols = new char[DigitalClockGeometry.NUM_OF_SYMBOLS];
+    private BufferedImage bodyLayer; // The body, date, colons, AM/PM and unlit segments
+    private int bodyLayerKey = -1;   // The half day the body layer was rendered for
+    private Object layerAntialiasing; // The antialiasing hint the body layer was rendered with
+
+    /**
+     * Constructs a drawer that can draw a seven-segment clock
+     * @param skin The skin of the clock
+     * @param width The width of the clock container
+     * @param height The height of the clock container
+     * @param clockSize The size of the clock
+     */
+    public SevenSegmentClockDrawer(Skin skin, int width, int height, int clockSize) {
+        this(skin, DigitalClockGeometry.forSize(width, height, clockSize));
+    }
+
+    /**
+     * Constructs a drawer that can draw a seven-segment clock with the given geometry
+     * @param skin The skin of the clock
+     * @param geometry The geometry of the clock, which may be shared with other drawers
+     */
+    public SevenSegmentClockDrawer(Skin skin, DigitalClockGeometry geometry) {
+        super(skin, geometry);
+        int incrementX = geometry.getIncrementX();
+        float digitWidth = (float)(incrementX*DIGIT_WIDTH_RATIO);
+        float digitHeight = (float)(incrementX*DIGIT_HEIGHT_RATIO);
+        float thickness = (float)(digitWidth*THICKNESS_RATIO);
+        digitTopY = Math.round(geometry.getTimeBottomY() - digitHeight);
+
+        // Build every segment of every digit once, at its final position, then join the lit segments of each
+        // digit value into one path, so that drawing a digit is a single fill
+        for (int i = 0; i < DIGIT_CELLS.length; i++) {
+            float x = geometry.getSymbolX(DIGIT_CELLS[i]);
+            buildDigit(segments[i], x, digitTopY, digitWidth, digitHeight, thickness);
+            for (int value = 0; value < DIGIT_SEGMENTS.length; value++) {
+                Path2D.Float digit = new Path2D.Float();
+                for (int segment = 0; segment < SEGMENT_COUNT; segment++) {
+                    if ((DIGIT_SEGMENTS[value] & (1 << segment)) != 0)
+                        digit.append(segments[i][segment], false);
+                }
+                digits[i][value] = new FixedPath(digit);
+            }
+            digitBounds[i] = new Rectangle((int)x - 2, digitTopY - 2, (int)Math.ceil(digitWidth) + 4, (int)Math.ceil(digitHeight) + 4);
+        }
+        for (int i = 0; i < COLON_CELLS.length; i++) {
+            float x = geometry.getSymbolX(COLON_CELLS[i]) + (digitWidth - thickness)/2;
+            colonDots[i*2] = new Rectangle2D.Float(x, digitTopY + digitHeight*0.3f - thickness/2, thickness, thickness);
+            colonDots[i*2 + 1] = new Rectangle2D.Float(x, digitTopY + digitHeight*0.7f - thickness/2, thickness, thickness);
+        }
+        meridiemFont = new Font(Font.MONOSPACED, Font.BOLD, Math.max(Math.round(digitHeight/2), 1));
+    }
+
+    /**
+     * Builds the seven segments of a digit
+     * @param digit The array the segments are written into, from a (the top) clockwise to f, then g (the middle)
+     * @param x The x value of the left of the digit
+     * @param y The y value of the top of the digit
+     * @param width The width of the digit
+     * @param height The height of the digit
+     * @param thickness The thickness of each segment
+     */
+    private static void buildDigit(Path2D.Float[] digit, float x, float y, float width, float height, float thickness) {
+        float half = thickness/2;
+        float left = x + half;
+        float right = x + width - half;
+        float top = y + half;
+        float middle = y + height/2;
+        float bottom = y + height - half;
+        digit[0] = buildSegment(left, top, right, top, half);
+        digit[1] = buildSegment(right, top, right, middle, half);
+        digit[2] = buildSegment(right, middle, right, bottom, half);
+        digit[3] = buildSegment(left, bottom, right, bottom, half);
+        digit[4] = buildSegment(left, middle, left, bottom, half);
+        digit[5] = buildSegment(left, top, left, middle, half);
+        digit[6] = buildSegment(left, middle, right, middle, half);
+    }
+
+    /**
+     * Builds a single horizontal or vertical segment, as a hexagon with pointed ends that leaves a small gap at each end
+     * @param x1 The x value of the start of the segment's center line
+     * @param y1 The y value of the start of the segment's center line
+     * @param x2 The x value of the end of the segment's center line
+     * @param y2 The y value of the end of the segment's center line
+     * @param half Half the thickness of the segment
+     * @return the segment
+     */
+    private static Path2D.Float buildSegment(float x1, float y1, float x2, float y2, float half) {
+        float gap = half/4;
+        Path2D.Float segment = new Path2D.Float();
+        if (y1 == y2) {
+            segment.moveTo(x1 + gap, y1);
+            segment.lineTo(x1 + gap + half, y1 - half);
+            segment.lineTo(x2 - gap - half, y1 - half);
+            segment.lineTo(x2 - gap, y1);
+            segment.lineTo(x2 - gap - half, y1 + half);
+            segment.lineTo(x1 + gap + half, y1 + half);
+        } else {
+            segment.moveTo(x1, y1 + gap);
+            segment.lineTo(x1 + half, y1 + gap + half);
+            segment.lineTo(x1 + half, y2 - gap - half);
+            segment.lineTo(x1, y2 - gap);
+            segment.lineTo(x1 - half, y2 - gap - half);
+            segment.lineTo(x1 - half, y1 + gap + half);
+        }
+        segment.closePath();
+        return segment;
+    }
+
+    /**
+     * Changes the skin of the clock
+     * @param skin Any skin
+     */
+    @Override
+    public void setSkin(Skin skin) {
+        super.setSkin(skin);
+        bodyLayerKey = -1;
+    }
+
+    /**
+     * Draws the seven-segment clock at the given time
+     * @param g2 The Graphics2D object to be drawn on
+     * @param time The given time
+     */
+    @Override
+    public void draw(Graphics2D g2, TimeSnapshot time) {
+        long phaseStart = ClockMetrics.startPhase();
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        int key = getBodyLayerKey(time);
+        if (bodyLayer == null || key != bodyLayerKey || antialiasing != layerAntialiasing) {
+            DigitalClockGeometry geometry = getGeometry();
+            if (bodyLayer == null)
+                bodyLayer = g2.getDeviceConfiguration().createCompatibleImage(geometry.getWidth(), geometry.getHeight(), Transparency.OPAQUE);
+            Graphics2D layer = bodyLayer.createGraphics();
+            layer.setRenderingHints(g2.getRenderingHints());
+            drawBody(layer);
+            drawDate(layer, time);
+            drawStaticSymbols(layer, time);
+            layer.dispose();
+            bodyLayerKey = key;
+            layerAntialiasing = antialiasing;
+        }
+        g2.drawImage(bodyLayer, 0, 0, null);
+        phaseStart = ClockMetrics.endPhase(RenderPhase.BODY, phaseStart);
+
+        // Fill only the lit segments of each digit, leaving blank digits unlit, and skipping
+        // the digits outside the clip, which on a dirty-rect repaint is every digit that did not change
+        ClockText.formatTime(time, symbols);
+        g2.setColor(skin.NUMBER_COLOR);
+        for (int i = 0; i < DIGIT_CELLS.length; i++) {
+            char symbol = symbols[DIGIT_CELLS[i]];
+            Rectangle bounds = digitBounds[i];
+            if (symbol >= '0' && symbol <= '9' && g2.hitClip(bounds.x, bounds.y, bounds.width, bounds.height))
+                digitCursor.fill(g2, digits[i][symbol - '0']);
+        }
+        ClockMetrics.endPhase(RenderPhase.HANDS, phaseStart);
+    }
+
+    /**
+     * Gets the cells of the digits that changed between two times, or the whole clock if the date or half of the day changed
+     * @param oldTime The time of the previous frame
+     * @param newTime The time of the next frame
+     * @return the damaged regions
+     */
+    @Override
+    public List<Rectangle> getDamagedRegions(TimeSnapshot oldTime, TimeSnapshot newTime) {
+        List<Rectangle> regions = new ArrayList<>();
+        if (oldTime == null || getBodyLayerKey(oldTime) != getBodyLayerKey(newTime)) {
+            DigitalClockGeometry geometry = getGeometry();
+            regions.add(new Rectangle(0, 0, geometry.getWidth(), geometry.getHeight()));
+            return regions;
+        }
+        char[] oldSymbols = new char[DigitalClockGeometry.NUM_OF_SYMBOLS];
+        char[] newSymbols = new char[DigitalClockGeometry.NUM_OF_SYMBOLS];
+        ClockText.formatTime(oldTime, oldSymbols);
+        ClockText.formatTime(newTime, newSymbols);
+        for (int i = 0; i < DIGIT_CELLS.length; i++) {
+            if (oldSymbols[DIGIT_CELLS[i]] != newSymbols[DIGIT_CELLS[i]])
+                regions.add(new Rectangle(digitBounds[i]));
+        }
+        return regions;
+    }
+
+    /**
+     * Draws the parts of the display that do not change within half a day: the unlit segments, the colons and AM/PM
+     * @param g2 The Graphics2D object to be drawn on
+     * @param time The given time
+     */
+    private void drawStaticSymbols(Graphics2D g2, TimeSnapshot time) {
+        Color fill = skin.PRIMARY_FILL_COLOR;
+        Color number = skin.NUMBER_COLOR;
+        g2.setColor(new Color(
+                (int)Math.round(fill.getRed() + (number.getRed() - fill.getRed())*UNLIT_SEGMENT_ALPHA),
+                (int)Math.round(fill.getGreen() + (number.getGreen() - fill.getGreen())*UNLIT_SEGMENT_ALPHA),
+                (int)Math.round(fill.getBlue() + (number.getBlue() - fill.getBlue())*UNLIT_SEGMENT_ALPHA)));
+        for (Path2D.Float[] digit : segments) {
+            for (Path2D.Float segment : digit) {
+                g2.fill(segment);
+            }
+        }
+        g2.setColor(number);
+        for (Rectangle2D.Float dot : colonDots) {
+            g2.fill(dot);
+        }
+        DigitalClockGeometry geometry = getGeometry();
+        TextLayoutCache.getShared().get(g2, MERIDIEMS[time.isAm() ? 0 : 1], meridiemFont)
+                .draw(g2, geometry.getSymbolX(MERIDIEM_CELL), geometry.getTimeBottomY());
+    }
+
+    /**
+     * Gets a key that changes with the day and the half of the day, which are shown by the body layer
+     * @param time The given time
+     * @return the key of the body layer
+     */
+    private static int getBodyLayerKey(TimeSnapshot time) {
+        return time.getDayKey()*2 + (time.isAm() ? 0 : 1);
+    }
+}
@@ -0,0 +1,376 @@
+package clock;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * A registry of skins, indexed by name, made up of the built-in skins of the SkinList and the skins of an optional catalog file.
+ * Loading the catalog only reads the name of each skin, and each skin's colors are decoded the first time the skin is used,
+ * so loading stays cheap however many skins the catalog holds. The catalog file can be watched, and is reloaded whenever it changes.
+ * <p>
+ * Each line of a catalog file defines one skin, as its name and then its eight colors in the order of Skin.setSkin, e.g.
+ * <pre>
+ * # name = background, primary fill, secondary fill, tertiary fill, quaternary fill, edge, date, numbers
+ * Midnight = #000000, #101030, #FF0000, #FFFFFF, #FFFFFF, #8080FF, #8080FF, #FFFFFF
+ * </pre>
+ * Blank lines and lines starting with # are ignored, and a skin of the catalog replaces any earlier skin of the same name
+ * @author Arik Dicks
+ */
+public final class SkinCatalog {
+    /**
+     * The system property naming the catalog file of the default catalog
+     */
+    public static final String CATALOG_PROPERTY = "clock.skins";
+    private static final int COLORS_PER_SKIN = 8;
+    private static final long SETTLE_MILLIS = 200; // How long the catalog file must go unchanged before it is reloaded
+    private final Path file;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Index index;
+    private WatchService watcher;
+
+    /**
+     * Constructs a catalog of only the built-in skins
+     */
+    public SkinCatalog() {
+        file = null;
+        HashMap<String, Entry> entries = new HashMap<>();
+        ArrayList<String> names = new ArrayList<>();
+        addBuiltInSkins(entries, names, null);
+        index = new Index(entries, names.toArray(new String[names.size()]), 0);
+    }
+
+    /**
+     * Constructs a catalog of the built-in skins, and the skins of the given catalog file
+     * @param file The catalog file
+     * @throws IOException if the catalog file cannot be read
+     */
+    public SkinCatalog(Path file) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("The catalog file must not be null");
+        this.file = file;
+        index = load(null);
+    }
+
+    /**
+     * Gets the catalog shared by the clocks of this JVM, of the built-in skins and the catalog file named by the clock.skins
+     * system property, if it is set. The catalog file of the shared catalog is watched for changes
+     * @return the shared catalog
+     */
+    public static SkinCatalog getDefault() {
+        return DefaultHolder.CATALOG;
+    }
+
+    /**
+     * Gets the skin of the given name, decoding its colors if this is its first use
+     * @param name The name of the skin
+     * @return the skin, or null if there is no skin of the given name
+     * @throws IllegalArgumentException if the skin's colors cannot be decoded
+     */
+    public Skin getSkin(String name) {
+        Entry entry = index.entries.get(name);
+        return (entry == null) ? null : entry.getSkin();
+    }
+
+    /**
+     * Gets the names of every skin, in the order they were defined, built-in skins first
+     * @return a copy of the names of the skins
+     */
+    public String[] getNames() {
+        return index.names.clone();
+    }
+
+    /**
+     * Gets the number of skins in the catalog
+     * @return the number of skins
+     */
+    public int size() {
+        return index.names.length;
+    }
+
+    /**
+     * Gets the version of the catalog, which changes every time it is reloaded
+     * @return the version of the catalog
+     */
+    public int getVersion() {
+        return index.version;
+    }
+
+    /**
+     * Gets the catalog file
+     * @return the catalog file, or null if the catalog only holds the built-in skins
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Adds a listener that is notified, on the watching thread, whenever the catalog is reloaded
+     * @param listener The listener
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     * @param listener The listener
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Rereads the catalog file and notifies the listeners. The skins whose definitions did not change keep their decoded skins,
+     * so only the changed skins are decoded again
+     * @throws IOException if the catalog file cannot be read, in which case the catalog is unchanged
+     */
+    public synchronized void reload() throws IOException {
+        if (file == null)
+            return;
+        index = load(index);
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : listeners) {
+            listener.stateChanged(event);
+        }
+    }
+
+    /**
+     * Starts watching the catalog file on a daemon thread, and reloads the catalog whenever the file is changed or replaced.
+     * Does nothing if the catalog has no file, or is already being watched
+     * @throws IOException if the directory of the catalog file cannot be watched
+     */
+    public synchronized void startWatching() throws IOException {
+        if (file == null || watcher != null)
+            return;
+        Path directory = file.toAbsolutePath().getParent();
+        final WatchService watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = watchService;
+        Thread thread = new Thread("SkinCatalogWatcher") {
+            @Override
+            public void run() {
+                watch(watchService);
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the catalog file
+     */
+    public synchronized void stopWatching() {
+        if (watcher == null)
+            return;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            // The watching thread ends either way
+        }
+        watcher = null;
+    }
+
+    /**
+     * Waits for changes to the catalog file, reloading the catalog once the file has settled after each change,
+     * until the watch service is closed
+     * @param watchService The service watching the directory of the catalog file
+     */
+    private void watch(WatchService watchService) {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                // A file is usually written in several events, so wait for them to stop before reloading
+                boolean changed = false;
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (name.equals(event.context()))
+                            changed = true;
+                    }
+                    key.reset();
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        // The file may be mid-write, and the next event reloads it again
+                        System.err.println("Cannot reload skin catalog " + file + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped watching
+        }
+    }
+
+    /**
+     * Builds the index of the built-in skins and the skins of the catalog file, which the catalog must have
+     * @param previous The previous index, whose decoded skins are kept for unchanged definitions, or null
+     * @return the new index
+     * @throws IOException if the catalog file cannot be read
+     */
+    private Index load(Index previous) throws IOException {
+        HashMap<String, Entry> entries = new HashMap<>();
+        ArrayList<String> names = new ArrayList<>();
+        addBuiltInSkins(entries, names, previous);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                int separator = line.indexOf('=');
+                if (separator <= 0)
+                    throw new IOException(file + ":" + lineNumber + ": expected <name> = <colors>");
+                String name = line.substring(0, separator).trim();
+                String body = line.substring(separator + 1).trim();
+                Entry entry = (previous == null) ? null : previous.entries.get(name);
+                if (entry == null || !body.equals(entry.body))
+                    entry = new Entry(name, body, lineNumber);
+                add(entries, names, entry);
+            }
+        }
+        int version = (previous == null) ? 0 : previous.version + 1;
+        return new Index(entries, names.toArray(new String[names.size()]), version);
+    }
+
+    /**
+     * Adds the built-in skins to an index being built, keeping the built-in skins of the previous index
+     * @param entries The entries of the index, by name
+     * @param names The names of the index, in order
+     * @param previous The previous index, or null
+     */
+    private void addBuiltInSkins(HashMap<String, Entry> entries, ArrayList<String> names, Index previous) {
+        SkinList builtIn = new SkinList();
+        for (int i = 0; i < builtIn.size(); i++) {
+            Skin skin = builtIn.getSkin(i);
+            Entry entry = (previous == null) ? null : previous.entries.get(skin.getName());
+            if (entry == null || entry.body != null)
+                entry = new Entry(skin.getName(), skin);
+            add(entries, names, entry);
+        }
+    }
+
+    /**
+     * Adds an entry to an index being built, replacing any entry of the same name in place
+     * @param entries The entries of the index, by name
+     * @param names The names of the index, in order
+     * @param entry The entry to be added
+     */
+    private static void add(HashMap<String, Entry> entries, ArrayList<String> names, Entry entry) {
+        if (entries.put(entry.name, entry) == null)
+            names.add(entry.name);
+    }
+
+    /**
+     * Decodes the colors of a skin
+     * @param name The name of the skin
+     * @param body The colors of the skin, separated by commas
+     * @param lineNumber The line of the catalog file the skin is defined on
+     * @return the decoded skin
+     * @throws IllegalArgumentException if the colors cannot be decoded
+     */
+    private Skin decode(String name, String body, int lineNumber) {
+        String[] values = body.split(",");
+        if (values.length != COLORS_PER_SKIN)
+            throw new IllegalArgumentException(file + ":" + lineNumber + ": skin " + name + " needs " + COLORS_PER_SKIN + " colors");
+        Color[] colors = new Color[COLORS_PER_SKIN];
+        for (int i = 0; i < colors.length; i++) {
+            try {
+                colors[i] = Color.decode(values[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(file + ":" + lineNumber + ": skin " + name + " has a bad color: " + values[i].trim(), e);
+            }
+        }
+        Skin skin = new Skin();
+        skin.setSkin(colors[0], colors[1], colors[2], colors[3], colors[4], colors[5], colors[6], colors[7]);
+        skin.setName(name);
+        return skin;
+    }
+
+    /**
+     * A skin of the catalog, whose colors are decoded on first use
+     */
+    private final class Entry {
+        private final String name;
+        private final String body;  // The undecoded colors, or null for a built-in skin
+        private final int lineNumber;
+        private Skin skin;
+
+        Entry(String name, Skin skin) {
+            this.name = name;
+            this.body = null;
+            this.lineNumber = 0;
+            this.skin = skin;
+        }
+
+        Entry(String name, String body, int lineNumber) {
+            this.name = name;
+            this.body = body;
+            this.lineNumber = lineNumber;
+        }
+
+        synchronized Skin getSkin() {
+            if (skin == null)
+                skin = decode(name, body, lineNumber);
+            return skin;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the skins of the catalog, which is replaced as a whole when the catalog is reloaded
+     */
+    private static final class Index {
+        private final HashMap<String, Entry> entries;
+        private final String[] names;
+        private final int version;
+
+        Index(HashMap<String, Entry> entries, String[] names, int version) {
+            this.entries = entries;
+            this.names = names;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Holds the default catalog, which is only loaded when first used
+     */
+    private static final class DefaultHolder {
+        private static final SkinCatalog CATALOG = createDefault();
+
+        private static SkinCatalog createDefault() {
+            String path = System.getProperty(CATALOG_PROPERTY);
+            if (path == null)
+                return new SkinCatalog();
+            try {
+                SkinCatalog catalog = new SkinCatalog(Paths.get(path));
+                catalog.startWatching();
+                return catalog;
+            } catch (IOException e) {
+                System.err.println("Cannot load skin catalog " + path + ": " + e.getMessage());
+                return new SkinCatalog();
+            }
+        }
+    }
+}
@@ -2,13 +2,15 @@ package clock;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
- * A list of various skins
+ * A list of various skins, which are the built-in skins of the SkinCatalog
  * @author Arik Dicks
  */
 public class SkinList {
     private final ArrayList<Skin> skins = new ArrayList<>();
+    private final HashMap<String, Skin> skinsByName = new HashMap<>();
 
     /**
      * Constructs the default skin list
@@ -139,6 +141,10 @@ public class SkinList {
                 Color.YELLOW);       // numbers
         barbie.setName("Barbie");
         skins.add(barbie);
+        
+        for (Skin skin : skins) {
+            skinsByName.put(skin.getName(), skin);
+        }
     }
 
     /**
@@ -147,11 +153,7 @@ public class SkinList {
      * @return the skin of the given name
      */
     public Skin getSkin(String skinName) {
-        for (Skin skin : skins) {
-            if (skin.getName().equals(skinName)) 
-                return skin;
-        }
-        return null;
+        return skinsByName.get(skinName);
     }
 
     /**
@@ -0,0 +1,134 @@
+package clock;
+
+import java.awt.event.ActionListener;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+
+/**
+ * A menu of the skins of a SkinCatalog, which is only built when it is opened, and rebuilt when opened after the catalog is reloaded.
+ * A catalog of more skins than fit on a page is split into nested pages of at most PAGE_SIZE entries each, and each page
+ * is only built when it is opened, so the menu never holds more items than have been looked at.
+ * Each item's action command is the name of its skin
+ * @author Arik Dicks
+ */
+public class SkinMenu extends JMenu {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The most entries on a page of the menu
+     */
+    public static final int PAGE_SIZE = 25;
+    private final SkinCatalog catalog;
+    private final ActionListener listener;
+    private int builtVersion = -1; // The version of the catalog the menu was built from, or -1 if it has not been built
+
+    /**
+     * Constructs an unbuilt menu of the skins of a catalog
+     * @param title The title of the menu
+     * @param catalog The catalog of skins
+     * @param listener The listener notified when a skin is chosen
+     */
+    public SkinMenu(String title, SkinCatalog catalog, ActionListener listener) {
+        super(title);
+        this.catalog = catalog;
+        this.listener = listener;
+        addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                build();
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e) {
+            }
+
+            @Override
+            public void menuCanceled(MenuEvent e) {
+            }
+        });
+    }
+
+    /**
+     * Builds the first page of the menu, if the catalog has changed since it was last built
+     */
+    private void build() {
+        int version = catalog.getVersion();
+        if (version == builtVersion)
+            return;
+        removeAll();
+        String[] names = catalog.getNames();
+        addEntries(this, names, 0, names.length, listener);
+        builtVersion = version;
+    }
+
+    /**
+     * Adds the entries of a range of skins to a menu: an item per skin if they fit on a page, or otherwise
+     * an unbuilt page per equal part of the range, with each part as small as fits on a page
+     * @param menu The menu to be added to
+     * @param names The names of the skins
+     * @param from The index of the first skin of the range
+     * @param to The index after the last skin of the range
+     * @param listener The listener notified when a skin is chosen
+     */
+    private static void addEntries(JMenu menu, String[] names, int from, int to, ActionListener listener) {
+        int count = to - from;
+        if (count <= PAGE_SIZE) {
+            for (int i = from; i < to; i++) {
+                JMenuItem item = new JMenuItem(names[i]);
+                item.setActionCommand(names[i]);
+                item.addActionListener(listener);
+                menu.add(item);
+            }
+            return;
+        }
+        int span = PAGE_SIZE;
+        while (span*PAGE_SIZE < count) {
+            span *= PAGE_SIZE;
+        }
+        for (int start = from; start < to; start += span) {
+            menu.add(new Page(names, start, Math.min(start + span, to), listener));
+        }
+    }
+
+    /**
+     * A page of the skins of a range, which is built when it is first opened
+     */
+    private static final class Page extends JMenu {
+        private static final long serialVersionUID = 1L;
+        private final String[] names;
+        private final int from;
+        private final int to;
+        private final ActionListener listener;
+        private boolean built;
+
+        Page(String[] names, int from, int to, ActionListener listener) {
+            super(names[from] + " - " + names[to - 1]);
+            this.names = names;
+            this.from = from;
+            this.to = to;
+            this.listener = listener;
+            addMenuListener(new MenuListener() {
+                @Override
+                public void menuSelected(MenuEvent e) {
+                    build();
+                }
+
+                @Override
+                public void menuDeselected(MenuEvent e) {
+                }
+
+                @Override
+                public void menuCanceled(MenuEvent e) {
+                }
+            });
+        }
+
+        private void build() {
+            if (!built) {
+                addEntries(this, names, from, to, listener);
+                built = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package clock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A listener's subscription to a unit of time on a TimeThread, which records how long the listener takes to be notified.
+ * The statistics are only written by the time thread, and can be read from any thread. Pausing and resuming are atomic,
+ * so any number of threads can pause and resume a subscription at once
+ * @author Arik Dicks
+ */
+public final class Subscription {
+    private final TimeThread timeThread;
+    private final TimeListener listener;
+    private final TickUnit unit;
+    private volatile boolean active = true;
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private final AtomicBoolean catchUp = new AtomicBoolean(); // Whether the listener must be notified of the current time after being resumed
+    private volatile long notificationCount;
+    private volatile long lastDispatchNanos;
+    private volatile long maxDispatchNanos;
+    private volatile long totalDispatchNanos;
+
+    /**
+     * Constructs a subscription, which is only done by TimeThread.subscribe
+     * @param timeThread The thread the listener is subscribed to
+     * @param listener The subscribed listener
+     * @param unit The unit of time the listener is notified on
+     */
+    Subscription(TimeThread timeThread, TimeListener listener, TickUnit unit) {
+        this.timeThread = timeThread;
+        this.listener = listener;
+        this.unit = unit;
+    }
+
+    /**
+     * Notifies the listener and records how long it took
+     */
+    void dispatch() {
+        long start = System.nanoTime();
+        listener.timeChanged();
+        long elapsed = System.nanoTime() - start;
+        lastDispatchNanos = elapsed;
+        totalDispatchNanos += elapsed;
+        if (elapsed > maxDispatchNanos)
+            maxDispatchNanos = elapsed;
+        notificationCount++;
+    }
+
+    /**
+     * Stops the listener from being notified. The listener may still be notified once if a tick is being dispatched
+     */
+    public void unsubscribe() {
+        active = false;
+        timeThread.unsubscribe(this);
+    }
+
+    /**
+     * Pauses or resumes the notification of the listener, e.g. while the clock it drives is hidden.
+     * While every subscription of a time thread is paused, the thread does not wake at all.
+     * A resumed listener is notified once, at once, of the current time, and then on its unit of time as before
+     * @param paused True to pause the subscription, false to resume it
+     */
+    public void setPaused(boolean paused) {
+        // Only the caller that actually changes the state flags the catch up and wakes the time thread
+        if (!this.paused.compareAndSet(!paused, paused))
+            return;
+        if (!paused)
+            catchUp.set(true);
+        timeThread.subscriptionPaused(!paused);
+    }
+
+    /**
+     * Gets whether the notification of the listener is paused
+     * @return true if the subscription is paused
+     */
+    public boolean isPaused() {
+        return paused.get();
+    }
+
+    /**
+     * Takes the pending catch up of the listener, which is only done by the time thread
+     * @return true if the listener was resumed and has not yet been caught up
+     */
+    boolean takeCatchUp() {
+        return catchUp.get() && catchUp.getAndSet(false);
+    }
+
+    /**
+     * Gets whether the listener is still notified
+     * @return true until the subscription is unsubscribed
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Gets the subscribed listener
+     * @return the listener
+     */
+    public TimeListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Gets the unit of time the listener is notified on
+     * @return the unit
+     */
+    public TickUnit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets the number of times the listener has been notified
+     * @return the number of notifications
+     */
+    public long getNotificationCount() {
+        return notificationCount;
+    }
+
+    /**
+     * Gets how long the most recent notification of the listener took
+     * @return the time in nanoseconds
+     */
+    public long getLastDispatchNanos() {
+        return lastDispatchNanos;
+    }
+
+    /**
+     * Gets how long the slowest notification of the listener took
+     * @return the time in nanoseconds
+     */
+    public long getMaxDispatchNanos() {
+        return maxDispatchNanos;
+    }
+
+    /**
+     * Gets how long notifications of the listener take on average
+     * @return the mean time in nanoseconds
+     */
+    public long getMeanDispatchNanos() {
+        long count = notificationCount;
+        return (count == 0) ? 0 : totalDispatchNanos/count;
+    }
+}
@@ -0,0 +1,419 @@
+package clock;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Writes analog and digital clocks as SVG text, streamed straight to a Writer without rasterizing anything, from the same
+ * geometries and skin colors the drawers use. Everything that does not change with the time (the background, body, tick marks
+ * and numerals, and the shapes of the hands at 12 o'clock) is written once as a defs block, so the document of each second
+ * only carries the date, and the rotation of each hand or the text of the time. The defs can be written inline, or as
+ * a document of their own that any number of frames refer to, which keeps each frame to a few hundred bytes
+ * @author Arik Dicks
+ */
+public class SvgClockWriter {
+    private static final double DEGREES_PER_TICK = 6;
+    private static final String ID_PREFIX = "clock-";
+    private final ClockView view;
+    private final Skin skin;
+    private final int width;
+    private final int height;
+    private final AnalogClockGeometry analog;   // Null unless the view is analog
+    private final DigitalClockGeometry digital; // Null unless the view is digital
+    private final char[] symbols = new char[DigitalClockGeometry.NUM_OF_SYMBOLS];
+    private boolean sweep;
+
+    /**
+     * Constructs a writer of clocks of the given view, skin and size
+     * @param view The view of the clock, which must be analog or digital
+     * @param skin The skin of the clock
+     * @param width The width of the clock
+     * @param height The height of the clock
+     * @throws IllegalArgumentException if the view has no SVG face
+     */
+    public SvgClockWriter(ClockView view, Skin skin, int width, int height) {
+        this.view = view;
+        this.skin = skin;
+        this.width = width;
+        this.height = height;
+        int clockSize = Math.max(Math.min(width, height)/100, 1);
+        switch (view) {
+            case ANALOG:
+                analog = AnalogClockGeometry.forSize(width, height, clockSize);
+                digital = null;
+                break;
+            case DIGITAL:
+                analog = null;
+                digital = DigitalClockGeometry.forSize(width, height, clockSize);
+                break;
+            default:
+                throw new IllegalArgumentException("There is no SVG face for the view: " + view);
+        }
+    }
+
+    /**
+     * Sets whether the hands of an analog clock sweep continuously, or tick from second to second
+     * @param sweep True for the hands to sweep
+     */
+    public void setSweep(boolean sweep) {
+        this.sweep = sweep;
+    }
+
+    /**
+     * Writes a whole SVG document of the clock at the given time, with its defs inline
+     * @param out The writer the document is streamed to
+     * @param time The time of the clock
+     * @throws IOException if the writer fails
+     */
+    public void writeDocument(Writer out, TimeSnapshot time) throws IOException {
+        writeStart(out);
+        writeDefs(out);
+        writeFrame(out, time, "");
+        out.write("</svg>\n");
+    }
+
+    /**
+     * Writes an SVG document of the clock at the given time, which refers to the defs in a document written by writeDefsDocument
+     * @param out The writer the document is streamed to
+     * @param time The time of the clock
+     * @param defsUrl The URL of the defs document, relative to the frame's document
+     * @throws IOException if the writer fails
+     */
+    public void writeDocument(Writer out, TimeSnapshot time, String defsUrl) throws IOException {
+        writeStart(out);
+        writeFrame(out, time, escape(defsUrl));
+        out.write("</svg>\n");
+    }
+
+    /**
+     * Writes an SVG document of only the defs of the clock, for the documents of each frame to refer to
+     * @param out The writer the document is streamed to
+     * @throws IOException if the writer fails
+     */
+    public void writeDefsDocument(Writer out) throws IOException {
+        writeStart(out);
+        writeDefs(out);
+        out.write("</svg>\n");
+    }
+
+    /**
+     * Writes the defs of the clock: the dial, and for an analog clock the shape of each hand at 12 o'clock
+     * @param out The writer the defs are streamed to
+     * @throws IOException if the writer fails
+     */
+    public void writeDefs(Writer out) throws IOException {
+        out.write("<defs>\n<g id=\"" + ID_PREFIX + "dial\">\n");
+        out.write("<rect width=\"" + width + "\" height=\"" + height + "\" fill=\"" + toHex(skin.BACKGROUND_COLOR) + "\"/>\n");
+        if (analog != null)
+            writeAnalogDial(out);
+        else
+            writeDigitalDial(out);
+        out.write("</g>\n");
+        if (analog != null)
+            writeHands(out);
+        out.write("</defs>\n");
+    }
+
+    /**
+     * Writes the elements of the clock at the given time, which refer to defs written by writeDefs
+     * @param out The writer the elements are streamed to
+     * @param time The time of the clock
+     * @throws IOException if the writer fails
+     */
+    public void writeFrame(Writer out, TimeSnapshot time) throws IOException {
+        writeFrame(out, time, "");
+    }
+
+    /**
+     * Writes the elements of the clock at the given time
+     * @param out The writer the elements are streamed to
+     * @param time The time of the clock
+     * @param defsUrl The escaped URL of the document of the defs, or an empty string if they are in the same document
+     * @throws IOException if the writer fails
+     */
+    private void writeFrame(Writer out, TimeSnapshot time, String defsUrl) throws IOException {
+        writeUse(out, defsUrl, "dial", null);
+        if (analog != null) {
+            // Clockwise rotations of the hands from 12 o'clock, as the drawer positions them
+            double minute = sweep ? time.getMinute() + time.getSecond()/60.0 : time.getMinute();
+            double second = sweep ? time.getSecond() + time.getMillisecond()/1000.0 : time.getSecond();
+            double hour = time.getHour()*5 + minute/12;
+            out.write("<text x=\"" + (int)analog.getCenterX() + "\" y=\"" + (int)(analog.getCenterY()*1.20)
+                    + "\" text-anchor=\"middle\" font-family=\"Times New Roman, serif\" font-weight=\"bold\" font-size=\""
+                    + getFontSize(4, analog.getScale()) + "\" fill=\"" + toHex(skin.DATE_COLOR) + "\">");
+            out.write(ClockText.formatDate(time));
+            out.write("</text>\n");
+            writeUse(out, defsUrl, "hour", getRotation(hour));
+            writeUse(out, defsUrl, "minute", getRotation(minute));
+            writeUse(out, defsUrl, "second", getRotation(second));
+        } else {
+            Rectangle body = digital.getBody();
+            String color = toHex(skin.NUMBER_COLOR);
+            out.write("<text x=\"" + formatNumber(body.getMinX() + body.getWidth()/2) + "\" y=\""
+                    + Math.round(body.getMaxY() - body.getHeight()*0.15) + "\" text-anchor=\"middle\" font-family=\"monospace\" font-size=\""
+                    + getFontSize(4, digital.getScale()) + "\" fill=\"" + color + "\">");
+            out.write(ClockText.formatDate(time));
+            out.write("</text>\n");
+
+            // Each symbol is placed in its own cell, as the drawer places them, and the blank cells are left out
+            ClockText.formatTime(time, symbols);
+            StringBuilder xs = new StringBuilder();
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < symbols.length; i++) {
+                if (symbols[i] == ' ')
+                    continue;
+                if (xs.length() > 0)
+                    xs.append(' ');
+                xs.append(digital.getSymbolX(i));
+                text.append(symbols[i]);
+            }
+            out.write("<text x=\"" + xs + "\" y=\"" + digital.getTimeBottomY() + "\" font-family=\"monospace\" font-size=\""
+                    + getFontSize(11, digital.getScale()) + "\" fill=\"" + color + "\">" + text + "</text>\n");
+        }
+    }
+
+    /**
+     * Writes the start of an SVG document of the size of the clock
+     * @param out The writer the document is streamed to
+     * @throws IOException if the writer fails
+     */
+    private void writeStart(Writer out) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"" + width
+                + "\" height=\"" + height + "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+    }
+
+    /**
+     * Writes the body, tick marks and numerals of an analog dial
+     * @param out The writer the dial is streamed to
+     * @throws IOException if the writer fails
+     */
+    private void writeAnalogDial(Writer out) throws IOException {
+        double scale = analog.getScale();
+        String cx = formatNumber(analog.getCenterX());
+        String cy = formatNumber(analog.getCenterY());
+        String r = formatNumber(analog.getRadius());
+
+        // The drawer fills the body over its edge, so only the outer half of the edge shows
+        out.write("<circle cx=\"" + cx + "\" cy=\"" + cy + "\" r=\"" + r + "\" fill=\"none\" stroke=\"" + toHex(skin.EDGE_COLOR)
+                + "\" stroke-width=\"" + formatNumber(scale*2) + "\"/>\n");
+        out.write("<circle cx=\"" + cx + "\" cy=\"" + cy + "\" r=\"" + r + "\" fill=\"" + toHex(skin.PRIMARY_FILL_COLOR) + "\"/>\n");
+
+        // Every tick mark in a single path, between the same points the drawer draws them between
+        out.write("<path fill=\"none\" stroke=\"" + toHex(skin.EDGE_COLOR) + "\" stroke-width=\"" + formatNumber(scale*0.4)
+                + "\" stroke-linecap=\"square\" d=\"");
+        for (int i = 0; i < analog.getTickCount(); i++) {
+            Point circlePoint = analog.getCirclePoint(i);
+            Point tickPoint = analog.getTickPoint(i);
+            out.write("M" + circlePoint.x + " " + circlePoint.y + "L" + tickPoint.x + " " + tickPoint.y);
+        }
+        out.write("\"/>\n");
+
+        out.write("<g font-family=\"Times New Roman, serif\" font-weight=\"bold\" font-size=\"" + getFontSize(6, scale)
+                + "\" text-anchor=\"middle\" fill=\"" + toHex(skin.NUMBER_COLOR) + "\">\n");
+        int numeralOffsetY = (int)Math.round(scale*1.2);
+        for (int i = 0; i < ClockText.NUMERAL_COUNT; i++) {
+            long x = Math.round(analog.getX(i*5, AnalogClockGeometry.NUMERAL_RADIUS_RATIO));
+            long y = Math.round(analog.getY(i*5, AnalogClockGeometry.NUMERAL_RADIUS_RATIO)) + numeralOffsetY;
+            out.write("<text x=\"" + x + "\" y=\"" + y + "\">" + ClockText.getNumeral(i) + "</text>\n");
+        }
+        out.write("</g>\n");
+    }
+
+    /**
+     * Writes the body of a digital dial
+     * @param out The writer the dial is streamed to
+     * @throws IOException if the writer fails
+     */
+    private void writeDigitalDial(Writer out) throws IOException {
+        Rectangle body = digital.getBody();
+        out.write("<rect x=\"" + body.x + "\" y=\"" + body.y + "\" width=\"" + body.width + "\" height=\"" + body.height
+                + "\" fill=\"" + toHex(skin.PRIMARY_FILL_COLOR) + "\" stroke=\"" + toHex(skin.EDGE_COLOR) + "\" stroke-width=\""
+                + formatNumber(digital.getScale()*2) + "\" stroke-linejoin=\"round\"/>\n");
+    }
+
+    /**
+     * Writes the shape of each hand of an analog clock at 12 o'clock, to be rotated into place by each frame
+     * @param out The writer the hands are streamed to
+     * @throws IOException if the writer fails
+     */
+    private void writeHands(Writer out) throws IOException {
+        double centerX = analog.getCenterX();
+        double centerY = analog.getCenterY();
+        double radius = analog.getRadius();
+        String strokeWidth = formatNumber(analog.getScale()*AnalogHandTable.HAND_STROKE_RATIO);
+        String tertiary = toHex(skin.TERTIARY_FILL_COLOR);
+        writeArrowHand(out, "hour", centerX, centerY, radius*AnalogHandTable.HOUR_HAND_LENGTH_RATIO, radius, tertiary, strokeWidth);
+        writeArrowHand(out, "minute", centerX, centerY, radius*AnalogHandTable.MINUTE_HAND_LENGTH_RATIO, radius, tertiary, strokeWidth);
+        out.write("<path id=\"" + ID_PREFIX + "second\" fill=\"none\" stroke=\"" + toHex(skin.SECONDARY_FILL_COLOR) + "\" stroke-width=\""
+                + strokeWidth + "\" stroke-linecap=\"square\" d=\"M" + formatNumber(centerX) + " "
+                + formatNumber(centerY - radius*AnalogHandTable.SECOND_HAND_LENGTH_RATIO) + "V" + formatNumber(centerY) + "\"/>\n");
+    }
+
+    /**
+     * Writes the shape of an hour or minute hand at 12 o'clock: a line from the center, ending in an arrow, as the table of hands builds it
+     * @param out The writer the hand is streamed to
+     * @param name The name of the hand
+     * @param centerX The x of the center of the clock
+     * @param centerY The y of the center of the clock
+     * @param length The length of the hand
+     * @param radius The radius of the clock, which the arrow is sized by
+     * @param color The color of the hand
+     * @param strokeWidth The width of the lines of the hand
+     * @throws IOException if the writer fails
+     */
+    private static void writeArrowHand(Writer out, String name, double centerX, double centerY, double length, double radius,
+            String color, String strokeWidth) throws IOException {
+        String x = formatNumber(centerX);
+        String left = formatNumber(centerX - radius*AnalogHandTable.ARROW_WIDTH_RATIO/2);
+        String right = formatNumber(centerX + radius*AnalogHandTable.ARROW_WIDTH_RATIO/2);
+        String tipY = formatNumber(centerY - length);
+        String baseY = formatNumber(centerY - length + radius*AnalogHandTable.ARROW_LENGTH_RATIO);
+        out.write("<path id=\"" + ID_PREFIX + name + "\" fill=\"none\" stroke=\"" + color + "\" stroke-width=\"" + strokeWidth
+                + "\" stroke-linecap=\"square\" d=\"M" + x + " " + formatNumber(centerY) + "V" + baseY
+                + "M" + left + " " + baseY + "H" + right + "M" + left + " " + baseY + "L" + x + " " + tipY + "L" + right + " " + baseY + "\"/>\n");
+    }
+
+    /**
+     * Writes a use of one of the defs
+     * @param out The writer the use is streamed to
+     * @param defsUrl The escaped URL of the document of the defs, or an empty string if they are in the same document
+     * @param name The name of the def
+     * @param transform The transform of the use, or null
+     * @throws IOException if the writer fails
+     */
+    private static void writeUse(Writer out, String defsUrl, String name, String transform) throws IOException {
+        out.write("<use xlink:href=\"" + defsUrl + "#" + ID_PREFIX + name + "\"");
+        if (transform != null)
+            out.write(" transform=\"" + transform + "\"");
+        out.write("/>\n");
+    }
+
+    /**
+     * Gets the rotation of a hand at the given position about the center of the clock
+     * @param position The position of the hand around the clock, in tick marks
+     * @return the transform of the hand
+     */
+    private String getRotation(double position) {
+        return "rotate(" + formatNumber(position*DEGREES_PER_TICK) + " " + formatNumber(analog.getCenterX()) + " "
+                + formatNumber(analog.getCenterY()) + ")";
+    }
+
+    /**
+     * Gets the size of a font sized for a 100 pixel clock, as the drawers size it
+     * @param size The size of the font on a clock of scale 1
+     * @param scale The scale of the clock
+     * @return the size of the font
+     */
+    private static int getFontSize(int size, double scale) {
+        return Math.max((int)Math.round(scale*size), 1);
+    }
+
+    /**
+     * Formats a number with at most two decimals, which is finer than any renderer resolves
+     * @param value The number
+     * @return the formatted number
+     */
+    private static String formatNumber(double value) {
+        long hundredths = Math.round(value*100);
+        if (hundredths%100 == 0)
+            return Long.toString(hundredths/100);
+        String sign = (hundredths < 0) ? "-" : "";
+        long magnitude = Math.abs(hundredths);
+        long fraction = magnitude%100;
+        return sign + magnitude/100 + ((fraction%10 == 0) ? "." + fraction/10 : (fraction < 10 ? ".0" : ".") + fraction);
+    }
+
+    /**
+     * Formats a color as an SVG color
+     * @param color The color
+     * @return the color, e.g. "#ff8000"
+     */
+    private static String toHex(Color color) {
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+
+    /**
+     * Escapes a value for an XML attribute
+     * @param value The value
+     * @return the escaped value
+     */
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;");
+    }
+
+    /**
+     * Writes the SVG frames of a clock for every step of a time range from the command line: the defs once, as dial.svg,
+     * and a frame per step that refers to them
+     * @param args from to stepMillis view skin size outputDirectory [zone],
+     * where from and to are local times in the form yyyy-MM-dd'T'HH:mm:ss
+     * @throws IOException if a frame cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 7) {
+            System.err.println("Usage: svg <from> <to> <stepMillis> <analog|digital> <skin> <size> <outputDirectory> [zone]");
+            System.err.println("  from and to are local times in the form yyyy-MM-dd'T'HH:mm:ss");
+            System.exit(2);
+        }
+        TimeZone zone = (args.length > 7) ? TimeZone.getTimeZone(args[7]) : TimeZone.getDefault();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        format.setTimeZone(zone);
+        long from;
+        long to;
+        try {
+            from = format.parse(args[0]).getTime();
+            to = format.parse(args[1]).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Times must be in the form yyyy-MM-dd'T'HH:mm:ss", e);
+        }
+        long step = Long.parseLong(args[2]);
+        if (step <= 0)
+            throw new IllegalArgumentException("The step must be positive");
+        Skin skin = SkinCatalog.getDefault().getSkin(args[4]);
+        if (skin == null)
+            throw new IllegalArgumentException("Unknown skin: " + args[4]);
+        int size = Integer.parseInt(args[5]);
+        File outputDirectory = new File(args[6]);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Cannot create " + outputDirectory);
+
+        SvgClockWriter svg = new SvgClockWriter(ClockView.forName(args[3]), skin, size, size);
+        svg.setSweep(step < 1000);
+        try (Writer out = newWriter(new File(outputDirectory, "dial.svg"))) {
+            svg.writeDefsDocument(out);
+        }
+        GregorianCalendar calendar = new GregorianCalendar(zone);
+        long start = System.nanoTime();
+        int frames = 0;
+        for (long time = from; time < to; time += step) {
+            try (Writer out = newWriter(new File(outputDirectory, String.format("frame-%06d.svg", frames)))) {
+                svg.writeDocument(out, TimeSnapshot.of(time, calendar), "dial.svg");
+            }
+            frames++;
+        }
+        double seconds = (System.nanoTime() - start)/1e9;
+        System.out.printf("Wrote %d frames at %.1f frames/sec%n", frames, frames/seconds);
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer of a file
+     * @param file The file
+     * @return the writer
+     * @throws IOException if the file cannot be opened
+     */
+    private static Writer newWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+    }
+}
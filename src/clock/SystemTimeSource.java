@@ -0,0 +1,64 @@
+package clock;
+
+/**
+ * The time source of the wall clock, which advances with the monotonic clock and is only corrected toward the wall clock
+ * gradually, so that the hands never jump when the wall clock is stepped by a small amount (e.g. by time synchronization).
+ * The correction is slewed at up to SLEW_RATE of the time that passes, and only differences of more than MAX_SLEW_MILLIS
+ * (e.g. the clock being set, or the machine resuming from suspend) are stepped at once. The time never runs backwards
+ * unless the wall clock is stepped back by more than that
+ * @author Arik Dicks
+ */
+public final class SystemTimeSource implements TimeSource {
+    /**
+     * The fraction of the time that passes by which the time may be corrected toward the wall clock
+     */
+    public static final double SLEW_RATE = 0.05;
+    /**
+     * The largest difference from the wall clock that is slewed rather than stepped
+     */
+    public static final long MAX_SLEW_MILLIS = 5000;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private final long anchorEpochNanos;
+    private final long anchorNanos;
+    private long offsetNanos;    // The correction toward the wall clock so far
+    private long lastNanos;      // The monotonic time the correction was last updated
+
+    /**
+     * Constructs a time source anchored to the wall clock now
+     */
+    public SystemTimeSource() {
+        anchorNanos = System.nanoTime();
+        anchorEpochNanos = System.currentTimeMillis()*NANOS_PER_MILLI;
+        lastNanos = anchorNanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentEpochNanos()/NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long nanosUntil(long timeMillis) {
+        // The slewing may change the rate a little before the time is reached, so the caller must check it was reached
+        return timeMillis*NANOS_PER_MILLI - currentEpochNanos();
+    }
+
+    /**
+     * Gets the current time, correcting it toward the wall clock by as much as the time passed since the last correction allows
+     * @return the time in nanoseconds since the epoch
+     */
+    private synchronized long currentEpochNanos() {
+        long nanos = System.nanoTime();
+        long monotonic = anchorEpochNanos + (nanos - anchorNanos);
+        long error = System.currentTimeMillis()*NANOS_PER_MILLI - (monotonic + offsetNanos);
+        if (Math.abs(error) > MAX_SLEW_MILLIS*NANOS_PER_MILLI) {
+            offsetNanos += error;
+        } else if (Math.abs(error) > NANOS_PER_MILLI) {
+            // Differences within the wall clock's resolution are not corrected, so the time is not slewed back and forth
+            long limit = (long)((nanos - lastNanos)*SLEW_RATE);
+            offsetNanos += Math.max(-limit, Math.min(error, limit));
+        }
+        lastNanos = nanos;
+        return monotonic + offsetNanos;
+    }
+}
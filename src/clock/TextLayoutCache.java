@@ -0,0 +1,170 @@
+package clock;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of laid out text, shared by every drawer, so that text which rarely changes (the numerals of a dial,
+ * or the date) is laid out into glyphs and measured once, rather than every time it is drawn.
+ * Text is keyed by its string, font and font render context, and the least recently used text is evicted once the cache is full
+ * @author Arik Dicks
+ */
+public final class TextLayoutCache {
+    private static final int MAX_TEXTS = 256;
+    private static final TextLayoutCache SHARED = new TextLayoutCache(MAX_TEXTS);
+    private final LinkedHashMap<Key, Text> texts;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a cache that holds at most the given number of texts
+     * @param maxTexts The most texts the cache holds before evicting the least recently used
+     */
+    public TextLayoutCache(final int maxTexts) {
+        texts = new LinkedHashMap<Key, Text>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Text> eldest) {
+                return size() > maxTexts;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache shared by all drawers
+     * @return the shared cache
+     */
+    public static TextLayoutCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the layout of a string, laying it out if it is not cached
+     * @param string The string to be laid out
+     * @param font The font of the text
+     * @param context The font render context of the Graphics2D object the text will be drawn on
+     * @return the laid out text
+     */
+    public synchronized Text get(String string, Font font, FontRenderContext context) {
+        Key key = new Key(string, font, context);
+        Text text = texts.get(key);
+        if (text == null) {
+            misses++;
+            text = new Text(font.createGlyphVector(context, string), context);
+            texts.put(key, text);
+        } else {
+            hits++;
+        }
+        return text;
+    }
+
+    /**
+     * Gets the layout of a string, in the given font and the font render context of the given Graphics2D object
+     * @param g2 The Graphics2D object the text will be drawn on
+     * @param string The string to be laid out
+     * @param font The font of the text
+     * @return the laid out text
+     */
+    public Text get(Graphics2D g2, String string, Font font) {
+        return get(string, font, g2.getFontRenderContext());
+    }
+
+    /**
+     * Gets the number of texts in the cache
+     * @return the number of cached texts
+     */
+    public synchronized int size() {
+        return texts.size();
+    }
+
+    /**
+     * Gets the number of lookups that found cached text
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to lay out text
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Text that has been laid out into glyphs and measured. Its glyphs must not be changed once it is cached
+     */
+    public static final class Text {
+        private final GlyphVector glyphs;
+        private final int width;
+        private final Rectangle pixelBounds;
+
+        Text(GlyphVector glyphs, FontRenderContext context) {
+            this.glyphs = glyphs;
+            width = (int)(0.5 + glyphs.getLogicalBounds().getWidth());
+            pixelBounds = glyphs.getPixelBounds(context, 0, 0);
+        }
+
+        /**
+         * Draws the text
+         * @param g2 The Graphics2D object to be drawn on
+         * @param x The x value of the left of the text
+         * @param y The y value of the baseline of the text
+         */
+        public void draw(Graphics2D g2, int x, int y) {
+            g2.drawGlyphVector(glyphs, x, y);
+        }
+
+        /**
+         * Gets the advance width of the text, as FontMetrics.stringWidth measures it
+         * @return the width of the text
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Gets the bounds of the pixels the text covers when drawn at the origin
+         * @return a copy of the bounds, relative to the left of the text on its baseline
+         */
+        public Rectangle getPixelBounds() {
+            return new Rectangle(pixelBounds);
+        }
+    }
+
+    /**
+     * The inputs text is laid out from
+     */
+    private static final class Key {
+        private final String string;
+        private final Font font;
+        private final FontRenderContext context;
+
+        Key(String string, Font font, FontRenderContext context) {
+            this.string = string;
+            this.font = font;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return string.equals(key.string) && font.equals(key.font) && context.equals(key.context);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = string.hashCode();
+            hash = 31*hash + font.hashCode();
+            return 31*hash + context.hashCode();
+        }
+    }
+}
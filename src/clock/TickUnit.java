@@ -0,0 +1,88 @@
+package clock;
+
+/**
+ * The units of time a listener can subscribe to, each of which notifies its listeners only when the unit rolls over
+ * @author Arik Dicks
+ */
+public enum TickUnit {
+    /**
+     * Every tick, or every frame when the time thread runs at a frame rate
+     */
+    FRAME {
+        @Override
+        boolean rolledOver(TimeSnapshot previous, TimeSnapshot current) {
+            return true;
+        }
+    },
+    SECOND {
+        @Override
+        boolean rolledOver(TimeSnapshot previous, TimeSnapshot current) {
+            return current.getSecond() != previous.getSecond() || MINUTE.rolledOver(previous, current);
+        }
+    },
+    MINUTE {
+        @Override
+        boolean rolledOver(TimeSnapshot previous, TimeSnapshot current) {
+            return current.getMinute() != previous.getMinute() || HOUR.rolledOver(previous, current);
+        }
+    },
+    /**
+     * Every hour of local time, including the hour that is repeated when the clocks go back, whose hour of the day is the
+     * same as that of the hour before it, but whose offset from UTC is not
+     */
+    HOUR {
+        @Override
+        boolean rolledOver(TimeSnapshot previous, TimeSnapshot current) {
+            return current.getHourOfDay() != previous.getHourOfDay() || DST.rolledOver(previous, current)
+                    || DAY.rolledOver(previous, current);
+        }
+    },
+    DAY {
+        @Override
+        boolean rolledOver(TimeSnapshot previous, TimeSnapshot current) {
+            return current.getDayKey() != previous.getDayKey();
+        }
+    },
+    /**
+     * A change in the offset of the time zone, such as the start or end of daylight saving time
+     */
+    DST {
+        @Override
+        boolean rolledOver(TimeSnapshot previous, TimeSnapshot current) {
+            return current.getUtcOffsetMillis() != previous.getUtcOffsetMillis();
+        }
+    };
+
+    private static final TickUnit[] UNITS = values();
+
+    /**
+     * Gets whether this unit rolled over between two consecutive ticks
+     * @param previous The time of the previous tick
+     * @param current The time of the current tick
+     * @return true if the listeners of this unit should be notified
+     */
+    abstract boolean rolledOver(TimeSnapshot previous, TimeSnapshot current);
+
+    /**
+     * Gets every unit that rolled over between two consecutive ticks, so that each unit is only checked once per tick
+     * @param previous The time of the previous tick, or null for the first tick, on which every unit rolls over
+     * @param current The time of the current tick
+     * @return a mask with the bit of each unit that rolled over set, as given by getMask
+     */
+    static int getRolledOver(TimeSnapshot previous, TimeSnapshot current) {
+        int rolledOver = 0;
+        for (TickUnit unit : UNITS) {
+            if (previous == null || unit.rolledOver(previous, current))
+                rolledOver |= unit.getMask();
+        }
+        return rolledOver;
+    }
+
+    /**
+     * Gets the bit of this unit in a mask of units
+     * @return the bit of this unit
+     */
+    int getMask() {
+        return 1 << ordinal();
+    }
+}
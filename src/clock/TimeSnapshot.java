@@ -0,0 +1,195 @@
+package clock;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * An immutable instant in time, with the fields used for drawing clocks decoded once when it is built.
+ * Snapshots are safe to hand between threads, unlike the calendars they are decoded from
+ * @author Arik Dicks
+ */
+public final class TimeSnapshot {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private final long epochNanos;
+    private final int hour;
+    private final int minute;
+    private final int second;
+    private final int millisecond;
+    private final int dayOfWeek;
+    private final int dayOfMonth;
+    private final int dayOfYear;
+    private final int month;
+    private final int year;
+    private final boolean isAm;
+    private final int utcOffsetMillis;
+
+    /**
+     * Constructs a snapshot by decoding the current time of a calendar
+     * @param calendar A calendar set to the time of the snapshot
+     */
+    private TimeSnapshot(Calendar calendar) {
+        epochNanos = calendar.getTimeInMillis()*NANOS_PER_MILLI;
+        hour = calendar.get(Calendar.HOUR);
+        minute = calendar.get(Calendar.MINUTE);
+        second = calendar.get(Calendar.SECOND);
+        millisecond = calendar.get(Calendar.MILLISECOND);
+        dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+        dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+        dayOfYear = calendar.get(Calendar.DAY_OF_YEAR);
+        month = calendar.get(Calendar.MONTH);
+        year = calendar.get(Calendar.YEAR);
+        isAm = calendar.get(Calendar.AM_PM) == Calendar.AM;
+        utcOffsetMillis = calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET);
+    }
+
+    /**
+     * Builds a snapshot of the given time, decoded in the time zone of the given calendar.
+     * The calendar is only used as scratch space, so one calendar can be reused for every snapshot
+     * @param epochMillis The time in milliseconds since the epoch
+     * @param calendar The calendar used to decode the time, which is left set to the given time
+     * @return the snapshot of the given time
+     */
+    public static TimeSnapshot of(long epochMillis, Calendar calendar) {
+        calendar.setTimeInMillis(epochMillis);
+        return new TimeSnapshot(calendar);
+    }
+
+    /**
+     * Builds a snapshot of the given time, decoded in the given time zone
+     * @param epochMillis The time in milliseconds since the epoch
+     * @param zone The time zone the time is decoded in
+     * @return the snapshot of the given time
+     */
+    public static TimeSnapshot of(long epochMillis, TimeZone zone) {
+        return of(epochMillis, new GregorianCalendar(zone));
+    }
+
+    /**
+     * Builds a snapshot of the current time, in the default time zone
+     * @return the snapshot of the current time
+     */
+    public static TimeSnapshot now() {
+        return of(System.currentTimeMillis(), TimeZone.getDefault());
+    }
+
+    /**
+     * Gets the time of this snapshot
+     * @return the time in nanoseconds since the epoch
+     */
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    /**
+     * Gets the time of this snapshot
+     * @return the time in milliseconds since the epoch
+     */
+    public long getEpochMillis() {
+        return epochNanos/NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the hour of the half day
+     * @return the hour, from 0 to 11
+     */
+    public int getHour() {
+        return hour;
+    }
+
+    /**
+     * Gets the hour of the day
+     * @return the hour, from 0 to 23
+     */
+    public int getHourOfDay() {
+        return isAm ? hour : hour + 12;
+    }
+
+    /**
+     * Gets the minute of the hour
+     * @return the minute, from 0 to 59
+     */
+    public int getMinute() {
+        return minute;
+    }
+
+    /**
+     * Gets the second of the minute
+     * @return the second, from 0 to 59
+     */
+    public int getSecond() {
+        return second;
+    }
+
+    /**
+     * Gets the millisecond of the second
+     * @return the millisecond, from 0 to 999
+     */
+    public int getMillisecond() {
+        return millisecond;
+    }
+
+    /**
+     * Gets the day of the week
+     * @return the day of the week, from Calendar.SUNDAY (1) to Calendar.SATURDAY (7)
+     */
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    /**
+     * Gets the day of the month
+     * @return the day of the month, starting at 1
+     */
+    public int getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    /**
+     * Gets the day of the year
+     * @return the day of the year, starting at 1
+     */
+    public int getDayOfYear() {
+        return dayOfYear;
+    }
+
+    /**
+     * Gets the month of the year
+     * @return the month, from Calendar.JANUARY (0) to Calendar.DECEMBER (11)
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * Gets the year
+     * @return the year
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Gets whether the time is before noon
+     * @return true for AM, false for PM
+     */
+    public boolean isAm() {
+        return isAm;
+    }
+
+    /**
+     * Gets the offset of the time zone from UTC at this time, including daylight saving time
+     * @return the offset in milliseconds
+     */
+    public int getUtcOffsetMillis() {
+        return utcOffsetMillis;
+    }
+
+    /**
+     * Gets a key that is the same for every snapshot on the same day, and different for every other day
+     * @return the key of the day
+     */
+    public int getDayKey() {
+        return year*1000 + dayOfYear;
+    }
+}
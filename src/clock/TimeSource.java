@@ -0,0 +1,23 @@
+package clock;
+
+/**
+ * A source of the time a clock shows, which need not be the wall clock, so that clocks can be driven at fixed,
+ * fast forwarded or recorded times, e.g. to benchmark or reproduce drawing at specific times
+ * @author Arik Dicks
+ */
+public interface TimeSource {
+
+    /**
+     * Gets the current time of this source
+     * @return the time in milliseconds since the epoch
+     */
+    public long currentTimeMillis();
+
+    /**
+     * Gets how long it will take this source to reach a time, in the real time of System.nanoTime
+     * @param timeMillis The time in milliseconds since the epoch
+     * @return the nanoseconds until the time is reached, 0 or less if it has been reached,
+     * or Long.MAX_VALUE if it will never be reached
+     */
+    public long nanosUntil(long timeMillis);
+}
@@ -1,53 +1,364 @@
 package clock;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * A thread that watches the time and notifies its listeners when the seconds change
+ * A thread that watches the time and notifies its listeners when the seconds change, or on every frame when a frame rate is set.
+ * The time is read from a TimeSource, the wall clock by default, which can be replaced, e.g. by a fixed or fast forwarded time
+ * to benchmark or reproduce drawing at specific times. Rather than polling, the thread parks until the next second boundary
+ * of its time source, and re-targets the absolute boundary on every tick so that it never accumulates drift.
+ * The current time is published as soon as the thread starts, so listeners never wait a tick for their first time.
+ * Listeners subscribe to a unit of time, and are only notified when their unit rolls over.
+ * The thread only wakes as often as the finest unit of its unpaused subscriptions needs: every frame or second,
+ * once a minute when no subscription needs seconds, and not at all when every subscription is paused.
+ * A subscription that is resumed is caught up at once, with a single notification of the current time.
+ * Subscriptions can be added, removed, paused and resumed from any thread while the thread is running
  * @author Arik Dicks
  */
 public class TimeThread extends Thread {
-    private static GregorianCalendar calendar;
-    private long lastSecond = 0;
-    private final ArrayList<TimeListener> listenerArrayList= new ArrayList<>();
+    private static final long TICK_MILLIS = 1000;
+    private static final long COARSE_TICK_MILLIS = 60*TICK_MILLIS; // The tick period when no subscription needs seconds
+    private static final long REPORT_INTERVAL = 60; // The number of ticks between jitter reports
+    private final TimeSource timeSource;
+    private volatile TimeSnapshot snapshot;
+    private final GregorianCalendar calendar = new GregorianCalendar(); // Only used by this thread, to decode each tick
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final boolean reportJitter = Boolean.getBoolean("clock.reportJitter");
+    private volatile long tickCount;
+    private volatile long missedTicks;
+    private volatile long missedFrames;
+    private volatile long framePeriodNanos; // The time between frames, or 0 when ticking once a second
+    private final AtomicInteger modeVersion = new AtomicInteger(); // Changed whenever the frame rate or the needs of the subscriptions change
+    private volatile boolean catchUpPending = true; // Whether a resumed subscription, or the start, is waiting to be caught up
+    private volatile long suspendedTicks;
+    private volatile long lastJitterNanos;
+    private volatile long maxJitterNanos;
+    private volatile long totalJitterNanos;
+
+    /**
+     * Constructs a time thread of the wall clock
+     */
+    public TimeThread() {
+        this(new SystemTimeSource());
+    }
+
+    /**
+     * Constructs a time thread of the given time source
+     * @param timeSource The source of the time the thread publishes
+     */
+    public TimeThread(TimeSource timeSource) {
+        this.timeSource = timeSource;
+    }
+
     @Override
     public void run() {
-        try {
-            while(true) {
-                calendar = (GregorianCalendar)Calendar.getInstance();
-                calendar.setTimeInMillis(System.currentTimeMillis());
-                int currentSecond = calendar.get(Calendar.SECOND);
-                if(currentSecond != lastSecond) {
-                    lastSecond = currentSecond;
-                    notifyListeners();
-                    sleep(900);
-                }
+        while (!isInterrupted()) {
+            int version = modeVersion.get();
+            if (catchUpPending) {
+                catchUpPending = false;
+                publish(timeSource.currentTimeMillis());
             }
-        } catch (InterruptedException e) {}  
+            TickUnit finest = getFinestUnit();
+            if (finest == null)
+                runSuspended(version);
+            else if (finest == TickUnit.FRAME && framePeriodNanos > 0)
+                runFrames(version);
+            else if (finest == TickUnit.FRAME || finest == TickUnit.SECOND)
+                runTicks(version, TICK_MILLIS);
+            else
+                runTicks(version, COARSE_TICK_MILLIS);
+        }
+    }
+
+    /**
+     * Sets the rate at which listeners are notified. At 0 the listeners are notified once a second,
+     * on the second boundary, otherwise they are notified on every frame
+     * @param framesPerSecond The number of frames per second, or 0 to tick once a second
+     */
+    public void setFrameRate(int framesPerSecond) {
+        framePeriodNanos = (framesPerSecond > 0) ? 1000000000L/framesPerSecond : 0;
+        modeChanged();
     }
 
     /**
-     * Adds a TimeListener to this thread
+     * Wakes the thread to switch modes, after the frame rate or the needs of the subscriptions change
+     */
+    private void modeChanged() {
+        modeVersion.incrementAndGet();
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Gets the finest unit of time any unpaused subscription is notified on
+     * @return the finest unit, or null if every subscription is paused
+     */
+    private TickUnit getFinestUnit() {
+        TickUnit finest = null;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.isActive() && !subscription.isPaused() && (finest == null || subscription.getUnit().compareTo(finest) < 0))
+                finest = subscription.getUnit();
+        }
+        return finest;
+    }
+
+    /**
+     * Notifies listeners on every boundary of the given period, until interrupted or the mode changes
+     * @param version The mode version the ticks were started in
+     * @param period The milliseconds between ticks: a second, or a minute when no subscription needs seconds
+     */
+    private void runTicks(int version, long period) {
+        long nextTick = (timeSource.currentTimeMillis()/period + 1)*period;
+        while (!isInterrupted() && modeVersion.get() == version) {
+            // Park until the time source reaches the boundary, asking it again after each wait, since a source need not
+            // run at exactly real time. The deadline is kept in monotonic time, so the lateness of the wake up can be measured
+            long deadline = System.nanoTime();
+            long wait;
+            while ((wait = timeSource.nanosUntil(nextTick)) > 0) {
+                deadline = System.nanoTime() + wait;
+                LockSupport.parkNanos(this, wait);
+                if (isInterrupted() || modeVersion.get() != version)
+                    return;
+            }
+            long now = timeSource.currentTimeMillis();
+            recordJitter(Math.max(System.nanoTime() - deadline, 0));
+            publish(now);
+
+            // Every second between coarse ticks was left unticked, since no subscription needed it
+            if (period > TICK_MILLIS)
+                addSuspendedTicks(period/TICK_MILLIS - 1);
+
+            // Aim for the boundary after the current time, skipping any boundaries that were
+            // missed entirely (e.g. after the machine was suspended)
+            long followingTick = (now/period + 1)*period;
+            long skipped = (followingTick - nextTick)/period - 1;
+            if (skipped > 0) {
+                missedTicks += skipped;
+                if (ClockMetrics.ENABLED)
+                    ClockMetrics.getInstance().addMissedTicks(skipped);
+            }
+            nextTick = followingTick;
+        }
+    }
+
+    /**
+     * Parks without notifying any listeners, while every subscription is paused, until interrupted or the mode changes
+     * @param version The mode version the suspension was started in
+     */
+    private void runSuspended(int version) {
+        long start = timeSource.currentTimeMillis();
+        while (!isInterrupted() && modeVersion.get() == version) {
+            LockSupport.park(this);
+        }
+        addSuspendedTicks(Math.max(timeSource.currentTimeMillis() - start, 0)/TICK_MILLIS);
+    }
+
+    /**
+     * Notifies listeners once per frame, paced against the monotonic clock, until interrupted or the mode changes
+     * @param version The mode version the frames were started in
+     */
+    private void runFrames(int version) {
+        long period = framePeriodNanos;
+        long deadline = System.nanoTime() + period;
+        while (!isInterrupted() && modeVersion.get() == version) {
+            long wait;
+            while ((wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+                if (isInterrupted() || modeVersion.get() != version)
+                    return;
+            }
+            long lateness = System.nanoTime() - deadline;
+            recordJitter(lateness);
+            publish(timeSource.currentTimeMillis());
+
+            // If whole frames were missed, drop them rather than firing them back to back
+            long skipped = lateness/period;
+            if (skipped > 0) {
+                missedFrames += skipped;
+                if (ClockMetrics.ENABLED)
+                    ClockMetrics.getInstance().addMissedFrames(skipped);
+                deadline += skipped*period;
+            }
+            deadline += period;
+        }
+    }
+
+    /**
+     * Publishes the given time and notifies the listeners
+     * @param timeMillis The time in milliseconds since the epoch
+     */
+    private void publish(long timeMillis) {
+        TimeSnapshot previous = snapshot;
+        snapshot = TimeSnapshot.of(timeMillis, calendar);
+        notifySubscribers(TickUnit.getRolledOver(previous, snapshot));
+    }
+
+    /**
+     * Adds a TimeListener to this thread, which is notified on every tick, or every frame when a frame rate is set
      * @param listener
+     * @return the subscription of the listener
      */
-    public void addTimeListener(TimeListener listener) {
-        listenerArrayList.add(listener);
+    public Subscription addTimeListener(TimeListener listener) {
+        return subscribe(listener, TickUnit.FRAME);
     }
 
     /**
-     * Gets the current time as a Gregorian Calendar
-     * @return the current time as a Gregorian Calendar
+     * Subscribes a TimeListener to a unit of time, so that it is only notified when the unit rolls over
+     * @param listener The listener to be notified
+     * @param unit The unit of time the listener is notified on
+     * @return the subscription of the listener, which can be used to unsubscribe it
      */
-    public GregorianCalendar getCalendar() {
-        return calendar;
+    public Subscription subscribe(TimeListener listener, TickUnit unit) {
+        Subscription subscription = new Subscription(this, listener, unit);
+        subscriptions.add(subscription);
+        modeChanged();
+        return subscription;
     }
-    private void notifyListeners() {
-        if (listenerArrayList.isEmpty())
-            return;
-        for (TimeListener listener : listenerArrayList) {
-            listener.timeChanged();
+
+    /**
+     * Unsubscribes a subscription, so that its listener is no longer notified
+     * @param subscription The subscription to be removed
+     */
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+        modeChanged();
+    }
+
+    /**
+     * Called when a subscription is paused or resumed, so the thread can wake as often as its subscriptions now need
+     * @param resumed True if the subscription was resumed, and needs to be caught up
+     */
+    void subscriptionPaused(boolean resumed) {
+        if (resumed)
+            catchUpPending = true;
+        modeChanged();
+    }
+
+    /**
+     * Gets every current subscription, e.g. to inspect how long each listener takes to be notified
+     * @return a copy of the list of subscriptions
+     */
+    public List<Subscription> getSubscriptions() {
+        return new ArrayList<>(subscriptions);
+    }
+
+    /**
+     * Gets the source of the time this thread publishes
+     * @return the time source
+     */
+    public TimeSource getTimeSource() {
+        return timeSource;
+    }
+
+    /**
+     * Gets the time of the most recent tick
+     * @return the time of the most recent tick, or null before the first tick
+     */
+    public TimeSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of ticks this thread has fired
+     * @return the number of ticks fired
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the number of second boundaries that passed without a tick being fired
+     * @return the number of missed ticks
+     */
+    public long getMissedTicks() {
+        return missedTicks;
+    }
+
+    /**
+     * Gets the number of frames that were dropped because the previous frame ran past their deadline
+     * @return the number of missed frames
+     */
+    public long getMissedFrames() {
+        return missedFrames;
+    }
+
+    /**
+     * Gets the number of second boundaries that passed without a tick, because no subscription needed seconds or every
+     * subscription was paused, which is the render work saved by suspending the clocks
+     * @return the number of suspended ticks
+     */
+    public long getSuspendedTicks() {
+        return suspendedTicks;
+    }
+
+    /**
+     * Records second boundaries that passed without a tick because no subscription needed them
+     * @param count The number of suspended ticks
+     */
+    private void addSuspendedTicks(long count) {
+        suspendedTicks += count;
+        if (ClockMetrics.ENABLED)
+            ClockMetrics.getInstance().addSuspendedTicks(count);
+    }
+
+    /**
+     * Gets how late the most recent tick fired, relative to its second boundary
+     * @return the jitter of the last tick in nanoseconds
+     */
+    public long getLastJitterNanos() {
+        return lastJitterNanos;
+    }
+
+    /**
+     * Gets the latest any tick has fired, relative to its second boundary
+     * @return the maximum jitter in nanoseconds
+     */
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    /**
+     * Gets the average lateness of all ticks, relative to their second boundaries
+     * @return the mean jitter in nanoseconds
+     */
+    public long getMeanJitterNanos() {
+        long count = tickCount;
+        return (count == 0) ? 0 : totalJitterNanos/count;
+    }
+
+    /**
+     * Records the jitter of a tick, in the clock metrics if they are enabled, and prints a report periodically if the
+     * clock.reportJitter system property is set
+     * @param jitterNanos The lateness of the tick in nanoseconds
+     */
+    private void recordJitter(long jitterNanos) {
+        if (ClockMetrics.ENABLED)
+            ClockMetrics.getInstance().recordTick(jitterNanos);
+        lastJitterNanos = jitterNanos;
+        totalJitterNanos += jitterNanos;
+        if (jitterNanos > maxJitterNanos)
+            maxJitterNanos = jitterNanos;
+        long count = ++tickCount;
+        if (reportJitter && count%REPORT_INTERVAL == 0) {
+            System.out.printf("Tick jitter: last %d us, mean %d us, max %d us, missed %d ticks, missed %d frames%n",
+                    lastJitterNanos/1000, getMeanJitterNanos()/1000, maxJitterNanos/1000, missedTicks, missedFrames);
+        }
+    }
+
+    /**
+     * Notifies the subscribers of every unit that rolled over, and the resumed subscribers that have not been caught up
+     * @param rolledOver The mask of the units that rolled over
+     */
+    private void notifySubscribers(int rolledOver) {
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.isActive() || subscription.isPaused())
+                continue;
+            if (subscription.takeCatchUp() || (rolledOver & subscription.getUnit().getMask()) != 0)
+                subscription.dispatch();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package clock;
+
+import java.awt.Dimension;
+import java.util.TimeZone;
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * The controller for a wall of world clocks, which drives every clock on the wall from a single time thread
+ * @author Arik Dicks
+ */
+public class WorldClockController {
+    private static final int DEFAULT_CLOCK_COUNT = 100;
+    private static final int DEFAULT_CLOCK_SIZE = 120;
+    private final TimeThread timeThread;
+    private final WorldClockWall wall;
+    private final JFrame frame;
+
+    /**
+     * Constructs a controller that shows a wall of clocks, one for each of the given time zones
+     * @param zones The time zones of the clocks
+     * @param view The view of every clock
+     * @param skin The skin of every clock
+     * @param clockSize The width and height of each clock
+     * @param frameRate The number of frames per second when sweeping, or 0 to tick once a second
+     */
+    public WorldClockController(TimeZone[] zones, ClockView view, Skin skin, int clockSize, int frameRate) {
+        int columns = Math.max((int)Math.ceil(Math.sqrt(zones.length)), 1);
+        wall = new WorldClockWall(view, skin, clockSize, columns);
+        for (TimeZone zone : zones) {
+            wall.addClock(zone, zone.getID());
+        }
+        wall.setSweep(frameRate > 0);
+
+        // Setup Frame
+        JScrollPane scrollPane = new JScrollPane(wall);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(clockSize/4);
+        Dimension preferred = wall.getPreferredSize();
+        scrollPane.setPreferredSize(new Dimension(Math.min(preferred.width + 20, 1600), Math.min(preferred.height + 20, 1000)));
+        frame = new JFrame();
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setTitle("World Clocks");
+        frame.add(scrollPane);
+        frame.pack();
+        frame.setVisible(true);
+
+        ClockMetrics.register();
+        timeThread = new TimeThread();
+        timeThread.setName("TimeThread");
+        timeThread.addTimeListener(new TimeListener() {
+            @Override
+            public void timeChanged() {
+                wall.updateTime(timeThread.getSnapshot().getEpochMillis());
+            }
+        });
+        timeThread.setFrameRate(frameRate);
+        timeThread.start();
+    }
+
+    /**
+     * Picks the given number of time zones, spread evenly over all the available time zones,
+     * and repeating them if more clocks are wanted than there are time zones
+     * @param count The number of time zones
+     * @return the time zones
+     */
+    public static TimeZone[] pickZones(int count) {
+        String[] ids = TimeZone.getAvailableIDs();
+        TimeZone[] zones = new TimeZone[count];
+        for (int i = 0; i < count; i++) {
+            zones[i] = TimeZone.getTimeZone(ids[(int)((long)i*ids.length/count) % ids.length]);
+        }
+        return zones;
+    }
+
+    /**
+     * Shows a wall of world clocks from the command line
+     * @param args [count] [clockSize] [frameRate] [analog|digital|seven_segment] [skin]
+     */
+    public static void main(String[] args) {
+        final int count = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_CLOCK_COUNT;
+        final int clockSize = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_CLOCK_SIZE;
+        final int frameRate = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+        final ClockView view = (args.length > 3) ? ClockView.forName(args[3]) : ClockView.ANALOG;
+        final Skin skin = (args.length > 4) ? SkinCatalog.getDefault().getSkin(args[4]) : new ClockSettings().getSkin();
+        if (skin == null)
+            throw new IllegalArgumentException("Unknown skin: " + args[4]);
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                new WorldClockController(pickZones(count), view, skin, clockSize, frameRate);
+            }
+        });
+    }
+}
@@ -0,0 +1,228 @@
+package clock;
+
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.swing.JComponent;
+
+/**
+ * A component that shows a grid of clocks, one for each of any number of time zones, all driven by a single tick.
+ * Each tick decodes the time once per time zone rather than once per clock, and the whole wall is painted in one pass,
+ * in which only the clocks inside the clip are drawn. The clocks of a time zone all show the same time, so they share one
+ * drawer and its rendered layers, and the analog clocks of the wall all share one dial through the DialCache
+ * @author Arik Dicks
+ */
+public class WorldClockWall extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final int LABEL_HEIGHT = 16;
+    private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+    private final ClockView view;
+    private final int clockSize;
+    private final int columns;
+    private final List<Cell> cells = new CopyOnWriteArrayList<>();
+    private final List<ZoneGroup> zoneGroups = new CopyOnWriteArrayList<>();
+    private final HashMap<String, ZoneGroup> zoneGroupsById = new HashMap<>();
+    private Skin skin;
+    private boolean sweep;
+
+    /**
+     * Constructs an empty wall of clocks
+     * @param view The view of every clock on the wall
+     * @param skin The skin of every clock on the wall
+     * @param clockSize The width and height of each clock
+     * @param columns The number of clocks in each row of the wall
+     */
+    public WorldClockWall(ClockView view, Skin skin, int clockSize, int columns) {
+        if (clockSize <= 0 || columns <= 0)
+            throw new IllegalArgumentException("The clock size and number of columns must be positive");
+        this.view = view;
+        this.skin = skin;
+        this.clockSize = clockSize;
+        this.columns = columns;
+        setOpaque(true);
+    }
+
+    /**
+     * Adds a clock to the end of the wall. Clocks in the same time zone share the decoding of each tick, and a drawer
+     * @param zone The time zone the clock shows
+     * @param label The label shown beneath the clock
+     */
+    public synchronized void addClock(TimeZone zone, String label) {
+        ZoneGroup group = zoneGroupsById.get(zone.getID());
+        if (group == null) {
+            ClockDrawer drawer = view.createDrawer(skin, clockSize, clockSize, Math.max(clockSize/100, 1));
+            drawer.setSweep(sweep);
+            group = new ZoneGroup(zone, drawer);
+            zoneGroupsById.put(zone.getID(), group);
+            zoneGroups.add(group);
+        }
+        cells.add(new Cell(group, label));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Gets the number of clocks on the wall
+     * @return the number of clocks
+     */
+    public int getClockCount() {
+        return cells.size();
+    }
+
+    /**
+     * Gets the number of distinct time zones on the wall, each of which is decoded once per tick
+     * @return the number of time zones
+     */
+    public int getZoneCount() {
+        return zoneGroups.size();
+    }
+
+    /**
+     * Updates the time of every clock on the wall, and repaints the wall in a single pass.
+     * This is called from the time thread, so no clock is drawn here
+     * @param epochMillis The new time in milliseconds since the epoch
+     */
+    public void updateTime(long epochMillis) {
+        for (ZoneGroup group : zoneGroups) {
+            group.time = TimeSnapshot.of(epochMillis, group.calendar);
+        }
+        repaint();
+    }
+
+    /**
+     * Changes the skin of every clock on the wall and repaints the wall
+     * @param newSkin The new skin
+     */
+    public void updateSkin(Skin newSkin) {
+        skin = newSkin;
+        for (ZoneGroup group : zoneGroups) {
+            group.drawer.setSkin(newSkin);
+        }
+        repaint();
+    }
+
+    /**
+     * Sets whether the clocks on the wall sweep continuously and repaints the wall
+     * @param sweep True for the clocks to sweep, false for them to tick once a second
+     */
+    public void setSweep(boolean sweep) {
+        this.sweep = sweep;
+        for (ZoneGroup group : zoneGroups) {
+            group.drawer.setSweep(sweep);
+        }
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int rows = (cells.size() + columns - 1)/columns;
+        return new Dimension(columns*clockSize, Math.max(rows, 1)*(clockSize + LABEL_HEIGHT));
+    }
+
+    @Override
+    public void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (ClockMetrics.ENABLED) {
+            ClockMetrics metrics = ClockMetrics.getInstance();
+            long startBytes = metrics.startFrame();
+            paintClocks(g2);
+            metrics.endFrame(startBytes);
+        } else {
+            paintClocks(g2);
+        }
+    }
+
+    /**
+     * Paints the clocks and labels of the cells that intersect the clip
+     * @param g2 The Graphics2D object to be painted on
+     */
+    private void paintClocks(Graphics2D g2) {
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g2.setColor(skin.BACKGROUND_COLOR);
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only the rows and columns that intersect the clip are drawn
+        int cellHeight = clockSize + LABEL_HEIGHT;
+        int firstRow = Math.max(clip.y/cellHeight, 0);
+        int lastRow = (clip.y + clip.height - 1)/cellHeight;
+        int firstColumn = Math.max(clip.x/clockSize, 0);
+        int lastColumn = Math.min((clip.x + clip.width - 1)/clockSize, columns - 1);
+        g2.setFont(LABEL_FONT);
+        FontMetrics metrics = g2.getFontMetrics();
+        int labelBaseline = clockSize + (LABEL_HEIGHT + metrics.getAscent() - metrics.getDescent())/2;
+        int cellCount = cells.size();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int index = row*columns + column;
+                if (index >= cellCount)
+                    return;
+                Cell cell = cells.get(index);
+                ZoneGroup group = cell.group;
+                TimeSnapshot time = group.time;
+                if (time == null)
+                    continue;
+                int x = column*clockSize;
+                int y = row*cellHeight;
+                g2.translate(x, y);
+                group.drawer.draw(g2, time);
+                g2.setFont(LABEL_FONT);
+                g2.setColor(skin.NUMBER_COLOR);
+                g2.drawString(cell.label, (clockSize - cell.labelWidth(metrics))/2, labelBaseline);
+                g2.translate(-x, -y);
+            }
+        }
+    }
+
+    /**
+     * The clocks of a single time zone, which share the decoding of each tick, and a drawer whose cached layers are only
+     * re-rendered for the first of them drawn at each new time
+     */
+    private static final class ZoneGroup {
+        private final GregorianCalendar calendar; // Only used by the time thread, to decode each tick
+        private final ClockDrawer drawer; // Only used on the EDT
+        private volatile TimeSnapshot time;
+
+        ZoneGroup(TimeZone zone, ClockDrawer drawer) {
+            calendar = new GregorianCalendar(zone);
+            this.drawer = drawer;
+            time = TimeSnapshot.of(System.currentTimeMillis(), calendar);
+        }
+    }
+
+    /**
+     * A single clock on the wall, drawn by the drawer of its time zone
+     */
+    private static final class Cell {
+        private final ZoneGroup group;
+        private final String label;
+        private int labelWidth = -1;
+
+        Cell(ZoneGroup group, String label) {
+            this.group = group;
+            this.label = label;
+        }
+
+        /**
+         * Gets the width of the label, measured the first time it is drawn
+         * @param metrics The metrics of the label font
+         * @return the width of the label
+         */
+        int labelWidth(FontMetrics metrics) {
+            if (labelWidth < 0)
+                labelWidth = metrics.stringWidth(label);
+            return labelWidth;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package clock;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.GregorianCalendar;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Guards the steady-state draw paths of the clocks against allocating, by drawing a few thousand frames into a headless
+ * image and counting the bytes the drawing thread allocated on each. A frame that starts a new minute may re-render the
+ * layers that change once a minute, so those frames are counted separately; every other frame must allocate nothing.
+ * <p>
+ * Java2D's image blits allocate a few small rectangles that only the JIT's escape analysis removes, and while a method is
+ * being recompiled a frame can briefly allocate them again. So the frames are measured over up to MEASURED_PASSES passes,
+ * and one whole pass must allocate nothing; an allocation made by the drawers themselves recurs on every pass
+ * @author Arik Dicks
+ */
+public class DrawerAllocationTest {
+    private static final int SIZE = 500;
+    private static final int FRAMES = 3000; // 50 minutes of ticks, within one day
+    private static final int WARMUP_PASSES = 3;
+    private static final int MEASURED_PASSES = 5; // The passes allowed to find one that allocates nothing
+    private com.sun.management.ThreadMXBean threads;
+    private BufferedImage image;
+    private Graphics2D g2;
+    private TimeSnapshot[] times;
+    private boolean[] newMinute; // Whether each frame is the first of its minute
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // The times are decoded up front, so only the drawing is measured
+        GregorianCalendar calendar = new GregorianCalendar(2024, 0, 15, 10, 0, 0);
+        long start = calendar.getTimeInMillis();
+        times = new TimeSnapshot[FRAMES];
+        newMinute = new boolean[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            times[i] = TimeSnapshot.of(start + i*1000L, calendar);
+            newMinute[i] = (times[i].getSecond() == 0);
+        }
+        newMinute[0] = true;
+    }
+
+    @After
+    public void tearDown() {
+        if (g2 != null)
+            g2.dispose();
+    }
+
+    @Test
+    public void analogDrawDoesNotAllocate() {
+        assertAllocationFree(new AnalogClockDrawer(new SkinList().getSkin("Basic"), SIZE, SIZE, SIZE/100));
+    }
+
+    @Test
+    public void digitalDrawDoesNotAllocate() {
+        assertAllocationFree(new DigitalClockDrawer(new SkinList().getSkin("Basic"), SIZE, SIZE, SIZE/100));
+    }
+
+    @Test
+    public void sevenSegmentDrawDoesNotAllocate() {
+        assertAllocationFree(new SevenSegmentClockDrawer(new SkinList().getSkin("Basic"), SIZE, SIZE, SIZE/100));
+    }
+
+    /**
+     * Draws every frame a few times to build the drawer's layers and warm up the JIT, then draws them all again, failing
+     * unless one of the next MEASURED_PASSES passes draws every frame that does not start a new minute without allocating
+     * a single byte
+     * @param drawer The drawer under test
+     */
+    private void assertAllocationFree(ClockDrawer drawer) {
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            for (TimeSnapshot time : times) {
+                drawer.draw(g2, time);
+            }
+        }
+        long threadId = Thread.currentThread().getId();
+        long steadyBytes = 0;
+        int allocatingFrames = 0;
+        long minuteBytes = 0;
+        for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+            steadyBytes = 0;
+            allocatingFrames = 0;
+            minuteBytes = 0;
+            for (int i = 0; i < FRAMES; i++) {
+                long before = threads.getThreadAllocatedBytes(threadId);
+                drawer.draw(g2, times[i]);
+                long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+                if (newMinute[i]) {
+                    minuteBytes += allocated;
+                } else if (allocated > 0) {
+                    steadyBytes += allocated;
+                    allocatingFrames++;
+                }
+            }
+            if (steadyBytes == 0)
+                break;
+        }
+        assertEquals(drawer.getClass().getSimpleName() + " allocated " + steadyBytes + " bytes over " + allocatingFrames
+                + " steady-state frames of its last pass (and " + minuteBytes + " bytes on the frames that start a minute)",
+                0, steadyBytes);
+    }
+}
@@ -0,0 +1,181 @@
+package clock;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that drawers can share a geometry across threads. Clocks of several sizes, in every view, are drawn at once on
+ * a thread pool, every drawer of a size sharing one geometry, and every kept frame is compared pixel for pixel with the
+ * same clock drawn afterwards on one thread, with a geometry of its own.
+ * <p>
+ * The concurrent pass runs first, in the test's own JVM, so everything shared between drawers (the geometries, and any
+ * process-wide cache the drawers fill as they draw) is built while the threads contend for it. The single threaded pass
+ * then reuses those process-wide caches, so the test catches a race that corrupts a drawer or a shared geometry, or that
+ * hands different threads different results, but not a cache entry that was built wrong for every reader alike
+ * @author Arik Dicks
+ */
+public class SharedGeometryStressTest {
+    private static final int[] SIZES = {100, 160, 240, 320};
+    private static final String[] SKINS = {"Basic", "Night Mode", "Barbie"};
+    private static final int DRAWERS_PER_CLOCK = 2; // The number of drawers of each clock drawing at once
+    private static final int THREADS = 8;
+    private static final int FRAMES = 120;
+    private static final int FRAMES_PER_CHECK = 30; // The frames between those compared
+    private static final long STEP_MILLIS = 7001; // Crosses minutes, and lands on different milliseconds, between frames
+
+    @Test
+    public void concurrentDrawingMatchesSingleThreadedDrawing() throws Exception {
+        GregorianCalendar calendar = new GregorianCalendar(2024, 0, 15, 10, 0, 0);
+        long start = calendar.getTimeInMillis();
+        final TimeSnapshot[] times = new TimeSnapshot[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            times[i] = TimeSnapshot.of(start + i*STEP_MILLIS, calendar);
+        }
+        SkinList skinList = new SkinList();
+
+        // Draw every clock at once first, each drawer of a size sharing the same geometry
+        List<Clock> clocks = new ArrayList<>();
+        for (ClockView view : ClockView.values()) {
+            for (int size : SIZES) {
+                Object geometry = createGeometry(view, size);
+                for (String skin : SKINS) {
+                    for (int copy = 0; copy < DRAWERS_PER_CLOCK; copy++) {
+                        clocks.add(new Clock(view, size, skinList.getSkin(skin), geometry));
+                    }
+                }
+            }
+        }
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<int[]>>> results = new ArrayList<>();
+        try {
+            for (final Clock clock : clocks) {
+                results.add(pool.submit(new Callable<List<int[]>>() {
+                    @Override
+                    public List<int[]> call() throws InterruptedException {
+                        startSignal.await();
+                        return drawFrames(createDrawer(clock.view, clock.skin, clock.geometry), clock.size, times);
+                    }
+                }));
+            }
+            startSignal.countDown();
+
+            // Then draw each clock again on this thread, with a geometry of its own, and compare
+            List<String> differences = new ArrayList<>();
+            for (int i = 0; i < clocks.size(); i++) {
+                Clock clock = clocks.get(i);
+                List<int[]> frames = results.get(i).get();
+                List<int[]> expected = drawFrames(createDrawer(clock.view, clock.skin, createGeometry(clock.view, clock.size)), clock.size, times);
+                for (int j = 0; j < expected.size(); j++) {
+                    if (!Arrays.equals(frames.get(j), expected.get(j))) {
+                        differences.add(clock + " at frame " + j*FRAMES_PER_CHECK);
+                        break;
+                    }
+                }
+            }
+            assertTrue("Clocks drawn concurrently differ from the same clocks drawn on one thread: " + differences, differences.isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the geometry of a clock
+     * @param view The view of the clock
+     * @param size The width and height of the clock
+     * @return the new geometry
+     */
+    private static Object createGeometry(ClockView view, int size) {
+        int clockSize = Math.max(size/100, 1);
+        switch (view) {
+            case ANALOG:
+                return new AnalogClockGeometry(size, size, clockSize);
+            case DIGITAL:
+            case SEVEN_SEGMENT:
+                return new DigitalClockGeometry(size, size, clockSize);
+            default:
+                throw new IllegalArgumentException("No geometry for the view " + view);
+        }
+    }
+
+    /**
+     * Creates a drawer of a clock with the given geometry
+     * @param view The view of the clock
+     * @param skin The skin of the clock
+     * @param geometry The geometry of the clock, from createGeometry
+     * @return the drawer
+     */
+    private static ClockDrawer createDrawer(ClockView view, Skin skin, Object geometry) {
+        switch (view) {
+            case ANALOG:
+                return new AnalogClockDrawer(skin, (AnalogClockGeometry) geometry);
+            case DIGITAL:
+                return new DigitalClockDrawer(skin, (DigitalClockGeometry) geometry);
+            case SEVEN_SEGMENT:
+                return new SevenSegmentClockDrawer(skin, (DigitalClockGeometry) geometry);
+            default:
+                throw new IllegalArgumentException("No drawer for the view " + view);
+        }
+    }
+
+    /**
+     * Draws a sweeping, antialiased clock at every time, keeping a copy of the pixels of every FRAMES_PER_CHECK'th frame
+     * @param drawer The drawer of the clock
+     * @param size The width and height of the clock
+     * @param times The times of the frames
+     * @return the pixels of the kept frames
+     */
+    private static List<int[]> drawFrames(ClockDrawer drawer, int size, TimeSnapshot[] times) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        drawer.setSweep(true);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        List<int[]> frames = new ArrayList<>();
+        try {
+            for (int i = 0; i < times.length; i++) {
+                drawer.draw(g2, times[i]);
+                if (i%FRAMES_PER_CHECK == 0)
+                    frames.add(pixels.clone());
+            }
+        } finally {
+            g2.dispose();
+        }
+        return frames;
+    }
+
+    /**
+     * A clock drawn by the concurrent pass
+     */
+    private static final class Clock {
+        private final ClockView view;
+        private final int size;
+        private final Skin skin;
+        private final Object geometry;
+
+        Clock(ClockView view, int size, Skin skin, Object geometry) {
+            this.view = view;
+            this.size = size;
+            this.skin = skin;
+            this.geometry = geometry;
+        }
+
+        @Override
+        public String toString() {
+            return view + " " + size + "x" + size + " " + skin.getName();
+        }
+    }
+}